@@ -0,0 +1,71 @@
+import { useEffect } from "react";
+
+const API_BASE = import.meta.env.VITE_API_URL ?? "";
+
+const POLL_INTERVAL_MS = 1500;
+const MAX_POLLS = 12;
+
+export type AiCommentEntry = {
+  date?: string;
+  aiComment?: string;
+  aiCommentStatus?: string;
+};
+
+// Server returns the saved mood immediately. With aiCommentStatus "stream" the comment is
+// streamed over SSE; with "pending" the entry is polled until the background comment is stored.
+export default function usePendingAiComment<T extends AiCommentEntry>(
+  userId: string | null | undefined,
+  entry: T | null,
+  storageKey: string,
+  setEntry: (e: T) => void
+) {
+  useEffect(() => {
+    if (!userId || !entry?.date || entry.aiCommentStatus !== "stream") return;
+
+    // Tokens are shown as the model produces them; "done" carries the persisted comment.
+    const source = new EventSource(`${API_BASE}/api/mood-entries/users/${userId}/mood/${entry.date}/ai-comment/stream`);
+    let text = "";
+    const finish = (finalText: string) => {
+      source.close();
+      const next = { ...entry, aiComment: finalText || undefined, aiCommentStatus: finalText ? "ready" : "none" } as T;
+      localStorage.setItem(storageKey, JSON.stringify(next));
+      setEntry(next);
+    };
+    source.addEventListener("token", (ev) => {
+      text += (ev as MessageEvent).data;
+      setEntry({ ...entry, aiComment: text } as T);
+    });
+    source.addEventListener("done", (ev) => finish((ev as MessageEvent).data || text));
+    source.onerror = () => finish(text);
+
+    return () => source.close();
+  }, [userId, entry?.date, entry?.aiCommentStatus]); // eslint-disable-line react-hooks/exhaustive-deps
+
+  useEffect(() => {
+    if (!userId || !entry?.date || entry.aiCommentStatus !== "pending") return;
+
+    let polls = 0;
+    let cancelled = false;
+    const timer = setInterval(async () => {
+      polls += 1;
+      try {
+        const res = await fetch(`${API_BASE}/api/mood-entries/users/${userId}/mood/${entry.date}`);
+        if (!res.ok || cancelled) return;
+        const data = await res.json();
+        if (data.aiCommentStatus !== "pending" || polls >= MAX_POLLS) {
+          clearInterval(timer);
+          const next = { ...entry, aiComment: data.aiComment, aiCommentStatus: data.aiCommentStatus } as T;
+          localStorage.setItem(storageKey, JSON.stringify(next));
+          setEntry(next);
+        }
+      } catch {
+        if (polls >= MAX_POLLS) clearInterval(timer);
+      }
+    }, POLL_INTERVAL_MS);
+
+    return () => {
+      cancelled = true;
+      clearInterval(timer);
+    };
+  }, [userId, entry, storageKey, setEntry]);
+}
@@ -80,7 +80,7 @@ const MoodPage: React.FC = () => {
       const res = await fetch(`${API_BASE}/api/mood-entries/users/${userId}/mood`, {
         method: "POST",
         headers: { "Content-Type": "application/json" },
-        body: JSON.stringify({ mood: moodNumber, reason: note.trim() }),
+        body: JSON.stringify({ mood: moodNumber, reason: note.trim(), streamComment: true }),
       });
       if (!res.ok) {
         let msg = res.statusText || "Gagal menyimpan mood";
@@ -1,6 +1,7 @@
 import React, { useEffect, useState } from "react";
 import { useActivePageContext } from "../context/ActivePageContext";
 import { useAuthContext } from "../context/AuthContext";
+import usePendingAiComment from "../hooks/usePendingAiComment";
 
 type MoodEntry = {
   date?: string;
@@ -10,6 +11,7 @@ type MoodEntry = {
   createdAt?: string;
   reason?: string;
   aiComment?: string;
+  aiCommentStatus?: string;
 };
 
 const moodEmoji: Record<number, string> = {
@@ -41,6 +43,9 @@ const SavedMood: React.FC = () => {
     } catch {}
   }, [user?.uuid]);
 
+  const currentUserId = user?.uuid || localStorage.getItem("userUuid");
+  usePendingAiComment(currentUserId, entry, `lastMoodEntry:${currentUserId}`, setEntry);
+
   if (!entry) {
     return (
       <div className="min-h-screen flex flex-col items-center justify-center bg-zinc-100 px-4">
@@ -83,6 +88,12 @@ const SavedMood: React.FC = () => {
             <p className="text-brown-700 leading-relaxed whitespace-pre-wrap">{entry.reason}</p>
           </div>
         )}
+        {!entry.aiComment && (entry.aiCommentStatus === "pending" || entry.aiCommentStatus === "stream") && (
+          <div className="mb-6">
+            <h2 className="text-lg font-bold text-brown-800 mb-2">Komentar AI</h2>
+            <p className="text-brown-700 italic">Sedang menyiapkan komentar...</p>
+          </div>
+        )}
         {entry.aiComment && (
           <div className="mb-6">
             <h2 className="text-lg font-bold text-brown-800 mb-2">Komentar AI</h2>
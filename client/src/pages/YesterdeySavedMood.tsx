@@ -1,6 +1,7 @@
 import React, { useEffect, useState } from "react";
 import { useActivePageContext } from "../context/ActivePageContext";
 import { useAuthContext } from "../context/AuthContext";
+import usePendingAiComment from "../hooks/usePendingAiComment";
 
 type PastMoodEntry = {
   date?: string;
@@ -10,6 +11,7 @@ type PastMoodEntry = {
   createdAt?: string;
   reason?: string;
   aiComment?: string;
+  aiCommentStatus?: string;
 };
 
 const moodEmoji: Record<number, string> = {
@@ -41,6 +43,9 @@ const YesterdeySavedMood: React.FC = () => {
     } catch {}
   }, [user?.uuid]);
 
+  const currentUserId = user?.uuid || localStorage.getItem("userUuid");
+  usePendingAiComment(currentUserId, entry, `lastPastMoodEntry:${currentUserId}`, setEntry);
+
   if (!entry) {
     return (
       <div className="min-h-screen flex flex-col items-center justify-center bg-zinc-100 px-4">
@@ -84,6 +89,12 @@ const YesterdeySavedMood: React.FC = () => {
             <p className="text-violet-900 leading-relaxed whitespace-pre-wrap">{entry.reason}</p>
           </div>
         )}
+        {!entry.aiComment && (entry.aiCommentStatus === "pending" || entry.aiCommentStatus === "stream") && (
+          <div className="mb-6">
+            <h2 className="text-lg font-bold text-violet-900 mb-2">Komentar AI</h2>
+            <p className="text-violet-900 italic">Sedang menyiapkan komentar...</p>
+          </div>
+        )}
         {entry.aiComment && (
           <div className="mb-6">
             <h2 className="text-lg font-bold text-violet-900 mb-2">Komentar AI</h2>
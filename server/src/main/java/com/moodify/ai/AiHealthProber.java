@@ -0,0 +1,118 @@
+package com.moodify.ai;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Probes the upstream model endpoint on a fixed schedule and keeps the latest result in memory,
+ * so status checks (load balancers, uptime monitors) are served from the snapshot instead of
+ * each one turning into an upstream call. Until the first probe completes the snapshot reports
+ * the upstream as not reachable, with no check time and zero probes.
+ */
+@Component
+public class AiHealthProber {
+
+    private static final String PROBE_KEY = "probe";
+
+    private final OpenAIClient openAIClient;
+    private final boolean enabled;
+    private final boolean[] window;
+    private final AtomicReference<Snapshot> current;
+    private final SingleFlight<String, Snapshot> probes = new SingleFlight<>();
+
+    // Guarded by this
+    private int windowNext;
+    private int windowFilled;
+    private long probeCount;
+    private Instant lastSuccessAt;
+
+    public AiHealthProber(OpenAIClient openAIClient,
+                          @Value("${openai.health.enabled:true}") boolean enabled,
+                          @Value("${openai.health.errorRateWindow:20}") int errorRateWindow) {
+        this.openAIClient = openAIClient;
+        this.enabled = enabled;
+        this.window = new boolean[Math.max(1, errorRateWindow)];
+        this.current = new AtomicReference<>(new Snapshot(openAIClient.health(false), null, null, 0.0, 0));
+    }
+
+    /** Latest snapshot; never calls the upstream. */
+    public Snapshot current() {
+        return current.get();
+    }
+
+    /**
+     * Probes now and returns the fresh snapshot. Concurrent callers (and the scheduled probe)
+     * share a single upstream call.
+     */
+    public Snapshot refreshNow() {
+        return probes.execute(PROBE_KEY, this::probe);
+    }
+
+    @Scheduled(fixedDelayString = "${openai.health.intervalMillis:30000}",
+            initialDelayString = "${openai.health.initialDelayMillis:5000}")
+    public void scheduledRefresh() {
+        if (enabled) refreshNow();
+    }
+
+    private Snapshot probe() {
+        OpenAIClient.AiHealth health = openAIClient.health(true);
+        Instant now = Instant.now();
+        Snapshot snapshot;
+        synchronized (this) {
+            if (health.isConfigured()) {
+                window[windowNext] = !health.isReachable();
+                windowNext = (windowNext + 1) % window.length;
+                windowFilled = Math.min(windowFilled + 1, window.length);
+                probeCount++;
+                if (health.isReachable()) lastSuccessAt = now;
+            }
+            int errors = 0;
+            for (int i = 0; i < windowFilled; i++) if (window[i]) errors++;
+            double errorRate = windowFilled == 0 ? 0.0 : (double) errors / windowFilled;
+            snapshot = new Snapshot(health, now, lastSuccessAt, errorRate, probeCount);
+        }
+        current.set(snapshot);
+        return snapshot;
+    }
+
+    public static final class Snapshot {
+        private final OpenAIClient.AiHealth health;
+        private final Instant checkedAt;
+        private final Instant lastSuccessAt;
+        private final double errorRate;
+        private final long probes;
+
+        Snapshot(OpenAIClient.AiHealth health, Instant checkedAt, Instant lastSuccessAt, double errorRate, long probes) {
+            this.health = health;
+            this.checkedAt = checkedAt;
+            this.lastSuccessAt = lastSuccessAt;
+            this.errorRate = errorRate;
+            this.probes = probes;
+        }
+
+        public OpenAIClient.AiHealth getHealth() { return health; }
+        public Instant getCheckedAt() { return checkedAt; }
+        public Instant getLastSuccessAt() { return lastSuccessAt; }
+        public double getErrorRate() { return errorRate; }
+        public long getProbes() { return probes; }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> out = new LinkedHashMap<>();
+            out.put("configured", health.isConfigured());
+            out.put("reachable", health.isReachable());
+            out.put("model", health.getModel());
+            out.put("error", health.getError());
+            out.put("checkedAt", checkedAt == null ? null : checkedAt.toString());
+            out.put("lastSuccessAt", lastSuccessAt == null ? null : lastSuccessAt.toString());
+            out.put("errorRate", errorRate);
+            out.put("probes", probes);
+            return out;
+        }
+    }
+}
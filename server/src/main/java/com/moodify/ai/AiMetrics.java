@@ -0,0 +1,156 @@
+package com.moodify.ai;
+
+import org.springframework.stereotype.Component;
+
+import java.net.http.HttpTimeoutException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-call metrics for upstream AI calls, tagged by method, model and prompt version:
+ * a fixed-bucket latency histogram, token usage from the response's {@code usage} block,
+ * and outcome counters. Only calls that actually reach the upstream are recorded; cache hits
+ * and coalesced followers are counted by {@link AiResponseCache} and {@link SingleFlight}.
+ */
+@Component
+public class AiMetrics {
+
+    public static final String OUTCOME_OK = "ok";
+    public static final String OUTCOME_TIMEOUT = "timeout";
+    public static final String OUTCOME_TRANSPORT_ERROR = "transport_error";
+    public static final String OUTCOME_PARSE_FAILURE = "parse_failure";
+    public static final String OUTCOME_EMPTY_CONTENT = "empty_content";
+    public static final String OUTCOME_REJECTED = "rejected";
+
+    /** Upper bounds in milliseconds; the last bucket is unbounded. */
+    private static final long[] BUCKET_BOUNDS_MILLIS = {50, 100, 250, 500, 1000, 2000, 3000, 5000, 10000};
+
+    private final Map<String, CallStats> calls = new ConcurrentHashMap<>();
+
+    public void recordLatency(String method, String model, String promptVersion, long elapsedNanos) {
+        stats(method, model, promptVersion).recordLatency(TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+    }
+
+    /** Negative values (usage block missing) are ignored. */
+    public void recordUsage(String method, String model, String promptVersion,
+                            long promptTokens, long completionTokens, long totalTokens) {
+        CallStats s = stats(method, model, promptVersion);
+        if (promptTokens >= 0) s.promptTokens.add(promptTokens);
+        if (completionTokens >= 0) s.completionTokens.add(completionTokens);
+        if (totalTokens >= 0) s.totalTokens.add(totalTokens);
+    }
+
+    /** HTTP status class of the response, e.g. {@code "2xx"}. */
+    public void recordStatus(String method, String model, String promptVersion, int status) {
+        recordOutcome(method, model, promptVersion, (status / 100) + "xx");
+    }
+
+    /** Transport failure: split into timeouts and everything else. */
+    public void recordError(String method, String model, String promptVersion, Throwable error) {
+        recordOutcome(method, model, promptVersion, isTimeout(error) ? OUTCOME_TIMEOUT : OUTCOME_TRANSPORT_ERROR);
+    }
+
+    public void recordOutcome(String method, String model, String promptVersion, String outcome) {
+        stats(method, model, promptVersion).outcomes.computeIfAbsent(outcome, k -> new LongAdder()).increment();
+    }
+
+    public List<Map<String, Object>> snapshot() {
+        List<Map<String, Object>> out = new ArrayList<>();
+        calls.values().forEach(s -> out.add(s.snapshot()));
+        return out;
+    }
+
+    private CallStats stats(String method, String model, String promptVersion) {
+        String key = method + '|' + model + '|' + promptVersion;
+        return calls.computeIfAbsent(key, k -> new CallStats(method, model, promptVersion));
+    }
+
+    private static boolean isTimeout(Throwable error) {
+        Throwable t = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return t instanceof TimeoutException || t instanceof HttpTimeoutException;
+    }
+
+    private static final class CallStats {
+        final String method;
+        final String model;
+        final String promptVersion;
+        final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS_MILLIS.length + 1];
+        final LongAdder count = new LongAdder();
+        final LongAdder sumMillis = new LongAdder();
+        final LongAdder promptTokens = new LongAdder();
+        final LongAdder completionTokens = new LongAdder();
+        final LongAdder totalTokens = new LongAdder();
+        final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+
+        CallStats(String method, String model, String promptVersion) {
+            this.method = method;
+            this.model = model;
+            this.promptVersion = promptVersion;
+            for (int i = 0; i < buckets.length; i++) buckets[i] = new LongAdder();
+        }
+
+        void recordLatency(long millis) {
+            int i = 0;
+            while (i < BUCKET_BOUNDS_MILLIS.length && millis > BUCKET_BOUNDS_MILLIS[i]) i++;
+            buckets[i].increment();
+            count.increment();
+            sumMillis.add(millis);
+        }
+
+        Map<String, Object> snapshot() {
+            long[] counts = new long[buckets.length];
+            for (int i = 0; i < buckets.length; i++) counts[i] = buckets[i].sum();
+            long n = count.sum();
+
+            Map<String, Object> histogram = new LinkedHashMap<>();
+            for (int i = 0; i < counts.length; i++) {
+                histogram.put(i < BUCKET_BOUNDS_MILLIS.length ? "le" + BUCKET_BOUNDS_MILLIS[i] : "inf", counts[i]);
+            }
+            Map<String, Object> latency = new LinkedHashMap<>();
+            latency.put("count", n);
+            latency.put("meanMillis", n == 0 ? 0 : sumMillis.sum() / n);
+            latency.put("p50Millis", upperBound(counts, 0.50));
+            latency.put("p95Millis", upperBound(counts, 0.95));
+            latency.put("p99Millis", upperBound(counts, 0.99));
+            latency.put("buckets", histogram);
+
+            Map<String, Object> tokens = new LinkedHashMap<>();
+            tokens.put("prompt", promptTokens.sum());
+            tokens.put("completion", completionTokens.sum());
+            tokens.put("total", totalTokens.sum());
+
+            Map<String, Object> outcomeCounts = new LinkedHashMap<>();
+            outcomes.forEach((k, v) -> outcomeCounts.put(k, v.sum()));
+
+            Map<String, Object> out = new LinkedHashMap<>();
+            out.put("method", method);
+            out.put("model", model);
+            out.put("promptVersion", promptVersion);
+            out.put("latency", latency);
+            out.put("tokens", tokens);
+            out.put("outcomes", outcomeCounts);
+            return out;
+        }
+
+        /** Bucket upper bound containing the quantile; -1 for the unbounded bucket or no data. */
+        private static long upperBound(long[] counts, double quantile) {
+            long total = 0;
+            for (long c : counts) total += c;
+            if (total == 0) return -1;
+            long rank = (long) Math.ceil(total * quantile);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) return i < BUCKET_BOUNDS_MILLIS.length ? BUCKET_BOUNDS_MILLIS[i] : -1;
+            }
+            return -1;
+        }
+    }
+}
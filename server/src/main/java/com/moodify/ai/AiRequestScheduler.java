@@ -0,0 +1,253 @@
+package com.moodify.ai;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control for upstream LLM calls: a requests-per-minute and a tokens-per-minute
+ * bucket in front of a bounded priority queue. Callers that can't be admitted within
+ * {@code maxWaitMillis}, or that find the queue full, are refused so they can use their
+ * fallback right away instead of piling onto the upstream and running into 429s.
+ */
+@Component
+public class AiRequestScheduler implements DisposableBean {
+
+    /** Lower ordinal = served first. */
+    public enum Priority { INTERACTIVE, STANDARD, BACKGROUND }
+
+    private final TokenBucket requestBucket;
+    private final TokenBucket tokenBucket;
+    private final int queueCapacity;
+    private final long maxWaitNanos;
+    private final ScheduledExecutorService timer;
+
+    private final PriorityQueue<Waiter> queue = new PriorityQueue<>(
+            Comparator.<Waiter>comparingInt(w -> w.priority.ordinal()).thenComparingLong(w -> w.seq));
+    private long seq;
+    private ScheduledFuture<?> scheduledDrain;
+    private long scheduledDrainAt;
+
+    private long admittedImmediately;
+    private long admittedAfterWait;
+    private long rejectedQueueFull;
+    private long rejectedTimeout;
+    private long evicted;
+
+    public AiRequestScheduler(@Value("${openai.scheduler.requestsPerMinute:500}") int requestsPerMinute,
+                              @Value("${openai.scheduler.tokensPerMinute:200000}") int tokensPerMinute,
+                              @Value("${openai.scheduler.queueCapacity:100}") int queueCapacity,
+                              @Value("${openai.scheduler.maxWaitMillis:1500}") long maxWaitMillis) {
+        this.requestBucket = new TokenBucket(requestsPerMinute);
+        this.tokenBucket = new TokenBucket(tokensPerMinute);
+        this.queueCapacity = Math.max(0, queueCapacity);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "openai-scheduler");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Rough token estimate used for the TPM bucket: ~4 characters per prompt token plus the
+     * completion budget.
+     */
+    public static int estimateTokens(String systemPrompt, String userPrompt, int maxTokens) {
+        int chars = (systemPrompt == null ? 0 : systemPrompt.length()) + (userPrompt == null ? 0 : userPrompt.length());
+        return chars / 4 + maxTokens;
+    }
+
+    /**
+     * Completes with {@code true} once the call may be sent, or {@code false} if it was refused
+     * (queue full, evicted by a higher-priority call, or not admitted within the maximum wait).
+     */
+    public CompletableFuture<Boolean> admit(Priority priority, int estimatedTokens) {
+        List<CompletableFuture<Boolean>> refused = new ArrayList<>(1);
+        CompletableFuture<Boolean> result;
+        synchronized (this) {
+            long now = System.nanoTime();
+            refill(now);
+            if (queue.isEmpty() && canConsume(estimatedTokens)) {
+                consume(estimatedTokens);
+                admittedImmediately++;
+                return CompletableFuture.completedFuture(true);
+            }
+            if (queue.size() >= queueCapacity) {
+                Waiter worst = worstWaiter();
+                if (worst == null || worst.priority.ordinal() <= priority.ordinal()) {
+                    rejectedQueueFull++;
+                    return CompletableFuture.completedFuture(false);
+                }
+                queue.remove(worst);
+                evicted++;
+                refused.add(worst.future);
+            }
+            Waiter w = new Waiter(priority, estimatedTokens, now + maxWaitNanos, seq++);
+            queue.add(w);
+            result = w.future;
+            scheduleDrain(now);
+        }
+        refused.forEach(f -> f.complete(false));
+        return result;
+    }
+
+    /**
+     * Upstream answered 429: stop admitting until the request bucket has refilled a little.
+     */
+    public synchronized void onRateLimited() {
+        requestBucket.drain();
+    }
+
+    public synchronized Map<String, Object> stats() {
+        refill(System.nanoTime());
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("queued", queue.size());
+        out.put("queueCapacity", queueCapacity);
+        out.put("admittedImmediately", admittedImmediately);
+        out.put("admittedAfterWait", admittedAfterWait);
+        out.put("rejectedQueueFull", rejectedQueueFull);
+        out.put("rejectedTimeout", rejectedTimeout);
+        out.put("evicted", evicted);
+        out.put("requestTokensAvailable", (long) requestBucket.tokens);
+        out.put("llmTokensAvailable", (long) tokenBucket.tokens);
+        return out;
+    }
+
+    @Override
+    public void destroy() {
+        timer.shutdownNow();
+    }
+
+    private void drain() {
+        List<CompletableFuture<Boolean>> admitted = new ArrayList<>();
+        List<CompletableFuture<Boolean>> expired = new ArrayList<>();
+        synchronized (this) {
+            scheduledDrain = null;
+            long now = System.nanoTime();
+            refill(now);
+            queue.removeIf(w -> {
+                if (w.deadline - now <= 0) {
+                    expired.add(w.future);
+                    rejectedTimeout++;
+                    return true;
+                }
+                return false;
+            });
+            // Strict priority order: a waiting high-priority call is not overtaken by cheaper low-priority ones.
+            while (!queue.isEmpty() && canConsume(queue.peek().tokens)) {
+                Waiter w = queue.poll();
+                consume(w.tokens);
+                admittedAfterWait++;
+                admitted.add(w.future);
+            }
+            if (!queue.isEmpty()) scheduleDrain(now);
+        }
+        expired.forEach(f -> f.complete(false));
+        admitted.forEach(f -> f.complete(true));
+    }
+
+    private void scheduleDrain(long now) {
+        Waiter head = queue.peek();
+        if (head == null) return;
+        long wait = Math.max(requestBucket.nanosUntil(1), tokenBucket.nanosUntil(head.tokens));
+        long earliestDeadline = queue.stream().mapToLong(w -> w.deadline).min().orElse(now + wait);
+        long at = Math.min(now + wait, earliestDeadline);
+        if (scheduledDrain != null && scheduledDrainAt - at <= 0) return;
+        if (scheduledDrain != null) scheduledDrain.cancel(false);
+        scheduledDrainAt = at;
+        scheduledDrain = timer.schedule(this::drain, Math.max(0, at - now), TimeUnit.NANOSECONDS);
+    }
+
+    private Waiter worstWaiter() {
+        Waiter worst = null;
+        for (Waiter w : queue) {
+            if (worst == null || w.priority.ordinal() > worst.priority.ordinal()
+                    || (w.priority == worst.priority && w.seq > worst.seq)) {
+                worst = w;
+            }
+        }
+        return worst;
+    }
+
+    private void refill(long now) {
+        requestBucket.refill(now);
+        tokenBucket.refill(now);
+    }
+
+    private boolean canConsume(int tokens) {
+        return requestBucket.canConsume(1) && tokenBucket.canConsume(tokens);
+    }
+
+    private void consume(int tokens) {
+        requestBucket.consume(1);
+        tokenBucket.consume(tokens);
+    }
+
+    private static final class Waiter {
+        final Priority priority;
+        final int tokens;
+        final long deadline;
+        final long seq;
+        final CompletableFuture<Boolean> future = new CompletableFuture<>();
+
+        Waiter(Priority priority, int tokens, long deadline, long seq) {
+            this.priority = priority;
+            this.tokens = tokens;
+            this.deadline = deadline;
+            this.seq = seq;
+        }
+    }
+
+    /** Per-minute bucket, refilled continuously; capacity equals the per-minute limit. */
+    private static final class TokenBucket {
+        final double capacity;
+        final double perNano;
+        double tokens;
+        long lastRefill = System.nanoTime();
+
+        TokenBucket(int perMinute) {
+            this.capacity = Math.max(1, perMinute);
+            this.perNano = capacity / TimeUnit.MINUTES.toNanos(1);
+            this.tokens = capacity;
+        }
+
+        void refill(long now) {
+            long elapsed = now - lastRefill;
+            if (elapsed > 0) {
+                tokens = Math.min(capacity, tokens + elapsed * perNano);
+                lastRefill = now;
+            }
+        }
+
+        // A request larger than the whole bucket is admitted once the bucket is full, rather than never.
+        boolean canConsume(int n) {
+            return tokens >= Math.min(n, capacity);
+        }
+
+        void consume(int n) {
+            tokens -= Math.min(n, capacity);
+        }
+
+        void drain() {
+            tokens = Math.min(tokens, 0);
+        }
+
+        long nanosUntil(int n) {
+            double missing = Math.min(n, capacity) - tokens;
+            return missing <= 0 ? 0 : (long) Math.ceil(missing / perNano);
+        }
+    }
+}
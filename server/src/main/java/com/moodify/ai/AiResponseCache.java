@@ -0,0 +1,115 @@
+package com.moodify.ai;
+
+import com.moodify.entity.AiResponseCacheEntry;
+import com.moodify.repository.AiResponseCacheRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Database-backed cache of AI completions, shared by every replica and surviving restarts.
+ * Failures talking to the database are treated as a miss - the cache must never break the AI path.
+ */
+@Component
+public class AiResponseCache {
+
+    private static final Logger log = LoggerFactory.getLogger(AiResponseCache.class);
+
+    private final AiResponseCacheRepository repository;
+    private final Duration ttl;
+    private final boolean enabled;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    public AiResponseCache(AiResponseCacheRepository repository,
+                           @Value("${openai.cache.enabled:true}") boolean enabled,
+                           @Value("${openai.cache.ttlMinutes:1440}") long ttlMinutes) {
+        this.repository = repository;
+        this.enabled = enabled;
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+    }
+
+    /**
+     * SHA-256 over everything that determines the completion. Bump the prompt version whenever a
+     * prompt changes meaning so stale entries stop matching.
+     */
+    public static String keyFor(String model, String promptVersion, String systemPrompt, String userPrompt, double temperature) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            for (String part : new String[]{model, promptVersion, systemPrompt, userPrompt, Double.toString(temperature)}) {
+                md.update((part == null ? "" : part).getBytes(StandardCharsets.UTF_8));
+                md.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(md.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public Optional<String> get(String key) {
+        if (!enabled) return Optional.empty();
+        try {
+            Optional<String> hit = repository.findById(key)
+                    .filter(e -> e.getExpiresAt().isAfter(OffsetDateTime.now()))
+                    .map(AiResponseCacheEntry::getContent);
+            if (hit.isPresent()) hits.increment(); else misses.increment();
+            return hit;
+        } catch (Exception e) {
+            errors.increment();
+            return Optional.empty();
+        }
+    }
+
+    public void put(String key, String method, String model, String promptVersion, String content) {
+        if (!enabled) return;
+        try {
+            OffsetDateTime now = OffsetDateTime.now();
+            // Insert without the merge SELECT that save() issues for an assigned id. A live row for
+            // the key is left alone; an expired one not yet purged is overwritten.
+            int written = repository.insertIfAbsent(key, method, model, promptVersion, content, now, now.plus(ttl));
+            if (written == 0) written = repository.replaceExpired(key, content, now, now.plus(ttl));
+            if (written > 0) writes.increment();
+        } catch (Exception e) {
+            errors.increment();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${openai.cache.purgeIntervalMillis:3600000}",
+            initialDelayString = "${openai.cache.purgeIntervalMillis:3600000}")
+    @Transactional
+    public void purgeExpired() {
+        if (!enabled) return;
+        int removed = repository.deleteExpired(OffsetDateTime.now());
+        if (removed > 0) {
+            log.info("Purged {} expired AI cache entries", removed);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("enabled", enabled);
+        out.put("hits", hits.sum());
+        out.put("misses", misses.sum());
+        out.put("writes", writes.sum());
+        out.put("errors", errors.sum());
+        out.put("ttlMinutes", ttl.toMinutes());
+        return out;
+    }
+}
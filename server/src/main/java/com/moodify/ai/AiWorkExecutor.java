@@ -0,0 +1,82 @@
+package com.moodify.ai;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded pool for the blocking parts of AI calls: response-cache reads and writes, and reading
+ * streamed completions (including the per-token callbacks that write to SSE clients). Kept apart from the
+ * HTTP client's own executor, which must stay free for body delivery and TLS; when this pool is
+ * saturated new work is refused instead of queueing without bound. A single scheduler thread
+ * enforces stream deadlines.
+ */
+@Component
+public class AiWorkExecutor implements DisposableBean {
+
+    private final ThreadPoolExecutor pool;
+    private final ScheduledExecutorService timer;
+    private final LongAdder rejected = new LongAdder();
+
+    public AiWorkExecutor(@Value("${openai.work.threads:8}") int threads,
+                          @Value("${openai.work.queueCapacity:256}") int queueCapacity) {
+        int n = Math.max(1, threads);
+        AtomicInteger seq = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(n, n, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), r -> {
+                    Thread t = new Thread(r, "ai-work-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ai-deadline");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Runs {@code task} on the pool; the future fails with {@link RejectedExecutionException} when it is full. */
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, pool);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /** Runs {@code action} once after {@code delay}, on the scheduler thread; keep it short. */
+    public ScheduledFuture<?> schedule(Runnable action, Duration delay) {
+        return timer.schedule(action, Math.max(0, delay.toNanos()), TimeUnit.NANOSECONDS);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("threads", pool.getPoolSize());
+        out.put("active", pool.getActiveCount());
+        out.put("queued", pool.getQueue().size());
+        out.put("rejected", rejected.sum());
+        return out;
+    }
+
+    @Override
+    public void destroy() {
+        timer.shutdownNow();
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,185 @@
+package com.moodify.ai;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based circuit breaker for the upstream AI API.
+ * <ul>
+ *   <li>CLOSED: calls pass; outcomes go into a sliding window of the last {@code windowSize} calls.
+ *       Once {@code minimumCalls} are recorded and either the failure rate or the slow-call rate
+ *       reaches its threshold, the breaker opens.</li>
+ *   <li>OPEN: calls are rejected immediately until {@code openDuration} has elapsed.</li>
+ *   <li>HALF_OPEN: up to {@code halfOpenCalls} trial calls are let through. All of them succeeding
+ *       closes the breaker, any failure re-opens it.</li>
+ * </ul>
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final LongSupplier clock;
+
+    private final boolean[] failed;
+    private final boolean[] slow;
+    private int next;
+    private int recorded;
+    private int failures;
+    private int slowCalls;
+
+    private volatile State state = State.CLOSED;
+    private volatile long openedAt;
+    private int halfOpenPermitsIssued;
+    private int halfOpenSuccesses;
+    private long rejected;
+    private long transitions;
+
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold,
+                          double slowCallRateThreshold, Duration slowCallDuration,
+                          Duration openDuration, int halfOpenCalls) {
+        this(windowSize, minimumCalls, failureRateThreshold, slowCallRateThreshold,
+                slowCallDuration, openDuration, halfOpenCalls, System::nanoTime);
+    }
+
+    CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold,
+                   double slowCallRateThreshold, Duration slowCallDuration,
+                   Duration openDuration, int halfOpenCalls, LongSupplier clock) {
+        this.windowSize = Math.max(1, windowSize);
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, this.windowSize));
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallNanos = slowCallDuration.toNanos();
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+        this.clock = clock;
+        this.failed = new boolean[this.windowSize];
+        this.slow = new boolean[this.windowSize];
+    }
+
+    /**
+     * Cheap, lock-free check used to skip all request preparation while the breaker is open.
+     * A {@code true} result still has to be confirmed with {@link #tryAcquire()}.
+     */
+    public boolean isCallPermitted() {
+        return state != State.OPEN || clock.getAsLong() - openedAt >= openNanos;
+    }
+
+    /**
+     * Asks for permission to make one call. Every granted permit must be followed by exactly one
+     * {@link #onSuccess}, {@link #onFailure} or {@link #release} call.
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (clock.getAsLong() - openedAt < openNanos) {
+                rejected++;
+                return false;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermitsIssued >= halfOpenCalls) {
+                rejected++;
+                return false;
+            }
+            halfOpenPermitsIssued++;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess(long durationNanos) {
+        boolean isSlow = durationNanos >= slowCallNanos;
+        if (state == State.HALF_OPEN) {
+            if (isSlow) {
+                transitionTo(State.OPEN);
+                return;
+            }
+            if (++halfOpenSuccesses >= halfOpenCalls) {
+                transitionTo(State.CLOSED);
+            }
+            return;
+        }
+        record(false, isSlow);
+    }
+
+    public synchronized void onFailure(long durationNanos) {
+        if (state == State.HALF_OPEN) {
+            transitionTo(State.OPEN);
+            return;
+        }
+        record(true, durationNanos >= slowCallNanos);
+    }
+
+    /** Returns a permit without recording an outcome (e.g. the call was never sent). */
+    public synchronized void release() {
+        if (state == State.HALF_OPEN && halfOpenPermitsIssued > 0) {
+            halfOpenPermitsIssued--;
+        }
+    }
+
+    public State getState() {
+        State s = state;
+        if (s == State.OPEN && clock.getAsLong() - openedAt >= openNanos) {
+            return State.HALF_OPEN;
+        }
+        return s;
+    }
+
+    public synchronized Map<String, Object> snapshot() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("state", getState().name());
+        out.put("recordedCalls", recorded);
+        out.put("failureRate", recorded == 0 ? 0.0 : failures * 100.0 / recorded);
+        out.put("slowCallRate", recorded == 0 ? 0.0 : slowCalls * 100.0 / recorded);
+        out.put("rejectedCalls", rejected);
+        out.put("transitions", transitions);
+        return out;
+    }
+
+    private void record(boolean isFailure, boolean isSlow) {
+        if (recorded == windowSize) {
+            if (failed[next]) failures--;
+            if (slow[next]) slowCalls--;
+        } else {
+            recorded++;
+        }
+        failed[next] = isFailure;
+        slow[next] = isSlow;
+        if (isFailure) failures++;
+        if (isSlow) slowCalls++;
+        next = (next + 1) % windowSize;
+
+        if (state == State.CLOSED && recorded >= minimumCalls) {
+            double failureRate = failures * 100.0 / recorded;
+            double slowRate = slowCalls * 100.0 / recorded;
+            if (failureRate >= failureRateThreshold || slowRate >= slowCallRateThreshold) {
+                transitionTo(State.OPEN);
+            }
+        }
+    }
+
+    private void transitionTo(State target) {
+        state = target;
+        transitions++;
+        halfOpenPermitsIssued = 0;
+        halfOpenSuccesses = 0;
+        if (target == State.OPEN) {
+            openedAt = clock.getAsLong();
+        } else if (target == State.CLOSED) {
+            java.util.Arrays.fill(failed, false);
+            java.util.Arrays.fill(slow, false);
+            next = 0;
+            recorded = 0;
+            failures = 0;
+            slowCalls = 0;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.moodify.ai;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the most recent upstream latencies and derives a request timeout from them:
+ * {@code percentile * multiplier}, clamped to [min, max]. Until enough samples exist the
+ * maximum is used, so a cold start never times out calls that would have succeeded.
+ */
+public class LatencyTracker {
+
+    private static final int MIN_SAMPLES = 20;
+    private static final int RECOMPUTE_EVERY = 16;
+
+    private final long[] samples;
+    private final double percentile;
+    private final double multiplier;
+    private final long minMillis;
+    private final long maxMillis;
+
+    private int next;
+    private int count;
+    private int sinceRecompute;
+    private volatile long timeoutMillis;
+
+    public LatencyTracker(int capacity, double percentile, double multiplier, Duration min, Duration max) {
+        this.samples = new long[Math.max(MIN_SAMPLES, capacity)];
+        this.percentile = percentile;
+        this.multiplier = multiplier;
+        this.minMillis = min.toMillis();
+        this.maxMillis = Math.max(min.toMillis(), max.toMillis());
+        this.timeoutMillis = this.maxMillis;
+    }
+
+    public synchronized void record(long durationNanos) {
+        samples[next] = durationNanos / 1_000_000L;
+        next = (next + 1) % samples.length;
+        if (count < samples.length) count++;
+        if (++sinceRecompute >= RECOMPUTE_EVERY || count == MIN_SAMPLES) {
+            sinceRecompute = 0;
+            recompute();
+        }
+    }
+
+    /** Current adaptive timeout; read lock-free on the request path. */
+    public Duration timeout() {
+        return Duration.ofMillis(timeoutMillis);
+    }
+
+    public Duration maxTimeout() {
+        return Duration.ofMillis(maxMillis);
+    }
+
+    public synchronized long percentileMillis(double p) {
+        if (count == 0) return 0;
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int idx = (int) Math.ceil(p / 100.0 * count) - 1;
+        return sorted[Math.max(0, Math.min(count - 1, idx))];
+    }
+
+    public synchronized Map<String, Object> snapshot() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("samples", count);
+        out.put("p50Millis", percentileMillis(50));
+        out.put("p95Millis", percentileMillis(95));
+        out.put("p99Millis", percentileMillis(99));
+        out.put("timeoutMillis", timeoutMillis);
+        return out;
+    }
+
+    private void recompute() {
+        if (count < MIN_SAMPLES) {
+            timeoutMillis = maxMillis;
+            return;
+        }
+        long derived = (long) Math.ceil(percentileMillis(percentile) * multiplier);
+        timeoutMillis = Math.max(minMillis, Math.min(maxMillis, derived));
+    }
+}
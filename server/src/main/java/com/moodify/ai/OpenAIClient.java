@@ -1,23 +1,74 @@
 package com.moodify.ai;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 @Service
 public class OpenAIClient {
 
+    // Bump when the matching system prompt changes meaning; part of the response cache key.
+    private static final String ACTIVITIES_PROMPT_VERSION = "activities-v1";
+    private static final String REASON_PROMPT_VERSION = "reason-v1";
+    private static final String WEEKLY_PROMPT_VERSION = "weekly-v1";
+    private static final String REASON_STREAM_PROMPT_VERSION = "reason-stream-v1";
+
+    private static final String ACTIVITIES_SYSTEM_PROMPT = """
+            Kamu adalah asisten yang memberi rekomendasi aktivitas singkat berbasis skor mood.
+            Balas SELALU dalam format JSON dengan schema:
+            {
+                "category": "angry|sad|neutral|happy|joy",
+                "activities": ["string", ... minimal 3 maks 6],
+                "tips": "string singkat"
+            }
+            Gunakan bahasa Indonesia, praktis, dan aman. Jangan sertakan penjelasan di luar JSON.
+            """;
+
+    private static final String REASON_SYSTEM_PROMPT = """
+            Kamu adalah asisten ramah dan suportif. Balas singkat (maks 2 kalimat),
+            empatik, dan relevan dengan alasan pengguna serta skor mood. berikan juga rekomendasi aktivitas tanpa poin(maks 2 kalimat) berdasarkan skor dari pengguna.
+            Kembalikan SELALU JSON: {"comment":"..."} tanpa teks lain.
+            Gunakan bahasa Indonesia.
+            """;
+
+    // Streaming variant: plain text so tokens can be shown as they arrive.
+    private static final String REASON_STREAM_SYSTEM_PROMPT = """
+            Kamu adalah asisten ramah dan suportif. Balas singkat (maks 2 kalimat),
+            empatik, dan relevan dengan alasan pengguna serta skor mood. berikan juga rekomendasi aktivitas tanpa poin(maks 2 kalimat) berdasarkan skor dari pengguna.
+            Balas dengan teks biasa saja, tanpa JSON dan tanpa markdown.
+            Gunakan bahasa Indonesia.
+            """;
+
+    private static final String WEEKLY_SYSTEM_PROMPT = """
+            Kamu adalah asisten ramah. Analisis mood dari pengguna (maks 4 kalimat) dan berikan saran untuk minggu kedepannya. Kembalikan SELALU JSON: {"comment":"..."}.
+            FORMAT: komentar harus diawali dengan teks ringkasan persentase yang diberikan,
+            diikuti tanda em dash (—), lalu 1-2 kalimat yang suportif.
+            Contoh: "62.5% Sad, 25% Angry, 12.5% Happy — kalimat dukungan positif..."
+            Gunakan bahasa Indonesia.
+            """;
+
     @Value("${openai.api.baseUrl:https://api.openai.com/v1}")
     private String baseUrl;
 
@@ -31,72 +82,51 @@ public class OpenAIClient {
     private int timeoutMillis;
 
     private final ObjectMapper mapper;
-
-    public OpenAIClient(ObjectMapper mapper) {
+    private final OpenAIHttpTransport transport;
+    private final CircuitBreaker breaker;
+    private final LatencyTracker latency;
+    private final AiResponseCache responseCache;
+    private final AiRequestScheduler scheduler;
+    private final AiMetrics metrics;
+    private final AiWorkExecutor work;
+    private final SingleFlight<String, Optional<String>> inFlight = new SingleFlight<>();
+
+    public OpenAIClient(ObjectMapper mapper, OpenAIHttpTransport transport,
+                        CircuitBreaker breaker, LatencyTracker latency, AiResponseCache responseCache,
+                        AiRequestScheduler scheduler, AiMetrics metrics, AiWorkExecutor work) {
         this.mapper = mapper;
+        this.transport = transport;
+        this.breaker = breaker;
+        this.latency = latency;
+        this.responseCache = responseCache;
+        this.scheduler = scheduler;
+        this.metrics = metrics;
+        this.work = work;
     }
 
     public Optional<AiResult> recommendActivities(int score, String category, String context) {
-        if (apiKey == null || apiKey.isBlank()) return Optional.empty();
-        try {
-            var client = HttpClient.newBuilder()
-                    .connectTimeout(Duration.ofMillis(timeoutMillis))
-                    .build();
-
-                        var systemPrompt = """
-                                Kamu adalah asisten yang memberi rekomendasi aktivitas singkat berbasis skor mood.
-                                Balas SELALU dalam format JSON dengan schema:
-                                {
-                                    "category": "angry|sad|neutral|happy|joy",
-                                    "activities": ["string", ... minimal 3 maks 6],
-                                    "tips": "string singkat"
-                                }
-                                Gunakan bahasa Indonesia, praktis, dan aman. Jangan sertakan penjelasan di luar JSON.
-                                """;
-
-            String userPrompt = "Skor: " + score + "\nKategori: " + category +
-                    "\nPreferensi: " + (context == null ? "" : context);
-
-            var body = Map.of(
-                    "model", model,
-                    "messages", List.of(
-                            Map.of("role", "system", "content", systemPrompt),
-                            Map.of("role", "user", "content", userPrompt)
-                    ),
-                    "temperature", 0.7,
-                    "max_tokens", 300
-            );
-
-            var request = HttpRequest.newBuilder()
-                    .uri(URI.create(baseUrl + "/chat/completions"))
-                    .timeout(Duration.ofMillis(timeoutMillis))
-                    .header("Authorization", "Bearer " + apiKey)
-                    .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(body)))
-                    .build();
-
-            var response = client.send(request, HttpResponse.BodyHandlers.ofString());
-            if (response.statusCode() >= 300) return Optional.empty();
+        return recommendActivitiesAsync(score, category, context).join();
+    }
 
-            JsonNode root = mapper.readTree(response.body());
-            String content = root.path("choices").path(0).path("message").path("content").asText();
-            if (content == null || content.isBlank()) return Optional.empty();
+    /**
+     * Non-blocking variant of {@link #recommendActivities}. The future never completes
+     * exceptionally; any failure is reported as an empty result.
+     */
+    public CompletableFuture<Optional<AiResult>> recommendActivitiesAsync(int score, String category, String context) {
+        return recommendActivitiesAsync(score, category, context, AiRequestScheduler.Priority.STANDARD);
+    }
 
-            JsonNode obj = mapper.readTree(content);
-            String outCategory = obj.path("category").asText(category);
-            List<String> activities = new ArrayList<>();
-            if (obj.has("activities") && obj.get("activities").isArray()) {
-                obj.get("activities").forEach(n -> { if (n.isTextual()) activities.add(n.asText()); });
-            }
-            String tips = obj.path("tips").asText("");
+    /** As above, admitted at {@code priority} (e.g. BACKGROUND for precomputation). */
+    public CompletableFuture<Optional<AiResult>> recommendActivitiesAsync(int score, String category, String context,
+                                                                          AiRequestScheduler.Priority priority) {
+        if (!isConfigured()) return CompletableFuture.completedFuture(Optional.empty());
 
-            if (activities.isEmpty() || tips.isBlank()) return Optional.empty();
+        String userPrompt = "Skor: " + score + "\nKategori: " + category +
+                "\nPreferensi: " + (context == null ? "" : context);
 
-            AiResult result = new AiResult(outCategory, activities, tips);
-            return Optional.of(result);
-        } catch (Exception e) {
-            return Optional.empty();
-        }
+        return chatCompletionAsync("recommendActivities", priority, ACTIVITIES_PROMPT_VERSION, ACTIVITIES_SYSTEM_PROMPT, userPrompt, 0.7, 300,
+                        c -> parseActivities(c, category).isPresent())
+                .thenApply(content -> content.flatMap(c -> parseActivities(c, category)));
     }
 
     public Optional<String> commentOnReason(int score, String reason) {
@@ -104,60 +134,72 @@ public class OpenAIClient {
     }
 
     public Optional<String> commentOnReason(int score, String reason, String context) {
-        if (apiKey == null || apiKey.isBlank()) return Optional.empty();
-        if (reason == null || reason.isBlank()) return Optional.empty();
-        try {
-            var client = HttpClient.newBuilder()
-                    .connectTimeout(Duration.ofMillis(timeoutMillis))
-                    .build();
-
-            var systemPrompt = """
-                Kamu adalah asisten ramah dan suportif. Balas singkat (maks 2 kalimat),
-                empatik, dan relevan dengan alasan pengguna serta skor mood. berikan juga rekomendasi aktivitas tanpa poin(maks 2 kalimat) berdasarkan skor dari pengguna.
-                Kembalikan SELALU JSON: {"comment":"..."} tanpa teks lain.
-                Gunakan bahasa Indonesia.
-                """;
-
-            StringBuilder up = new StringBuilder();
-            up.append("Skor: ").append(score).append('\n');
-            up.append("Alasan: ").append(reason);
-            if (context != null && !context.isBlank()) {
-                up.append("\nProfil: ").append(context);
-            }
-            String userPrompt = up.toString();
-
-            var body = Map.of(
-                    "model", model,
-                    "messages", List.of(
-                            Map.of("role", "system", "content", systemPrompt),
-                            Map.of("role", "user", "content", userPrompt)
-                    ),
-                    "temperature", 0.6,
-                    "max_tokens", 120
-            );
+        return commentOnReasonAsync(score, reason, context).join();
+    }
 
-            var request = HttpRequest.newBuilder()
-                    .uri(URI.create(baseUrl + "/chat/completions"))
-                    .timeout(Duration.ofMillis(timeoutMillis))
-                    .header("Authorization", "Bearer " + apiKey)
-                    .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(body)))
-                    .build();
+    /**
+     * Non-blocking variant of {@link #commentOnReason(int, String, String)}. The future never
+     * completes exceptionally; any failure is reported as an empty result.
+     */
+    public CompletableFuture<Optional<String>> commentOnReasonAsync(int score, String reason, String context) {
+        return commentOnReasonAsync(score, reason, context, AiRequestScheduler.Priority.INTERACTIVE);
+    }
 
-            var response = client.send(request, HttpResponse.BodyHandlers.ofString());
-            if (response.statusCode() >= 300) return Optional.empty();
+    /** As above, admitted at {@code priority} (e.g. BACKGROUND for bulk-import backlogs). */
+    public CompletableFuture<Optional<String>> commentOnReasonAsync(int score, String reason, String context,
+                                                                    AiRequestScheduler.Priority priority) {
+        if (!isConfigured()) return CompletableFuture.completedFuture(Optional.empty());
+        if (reason == null || reason.isBlank()) return CompletableFuture.completedFuture(Optional.empty());
+
+        StringBuilder up = new StringBuilder();
+        up.append("Skor: ").append(score).append('\n');
+        up.append("Alasan: ").append(reason);
+        if (context != null && !context.isBlank()) {
+            up.append("\nProfil: ").append(context);
+        }
+        String userPrompt = up.toString();
 
-            JsonNode root = mapper.readTree(response.body());
-            String content = root.path("choices").path(0).path("message").path("content").asText();
-            if (content == null || content.isBlank()) return Optional.empty();
+        return chatCompletionAsync("commentOnReason", priority, REASON_PROMPT_VERSION, REASON_SYSTEM_PROMPT, userPrompt, 0.6, 120,
+                        c -> parseComment(c).isPresent())
+                .thenApply(content -> content.flatMap(this::parseComment));
+    }
 
-            JsonNode obj = mapper.readTree(content);
-            String comment = obj.path("comment").asText("");
-            if (comment.isBlank()) return Optional.empty();
-            return Optional.of(comment);
-        } catch (Exception e) {
-            return Optional.empty();
+    /**
+     * Streaming variant of {@link #commentOnReason(int, String, String)}: requests the completion
+     * with {@code stream: true} and hands each content delta to {@code onToken} as it arrives.
+     * A cached comment is delivered as a single token. The future completes with the full text
+     * (empty on any failure) and never completes exceptionally.
+     */
+    public CompletableFuture<Optional<String>> streamCommentOnReason(int score, String reason, String context,
+                                                                     Consumer<String> onToken) {
+        if (!isConfigured()) return CompletableFuture.completedFuture(Optional.empty());
+        if (reason == null || reason.isBlank()) return CompletableFuture.completedFuture(Optional.empty());
+        if (!breaker.isCallPermitted()) return CompletableFuture.completedFuture(Optional.empty());
+
+        StringBuilder up = new StringBuilder();
+        up.append("Skor: ").append(score).append('\n');
+        up.append("Alasan: ").append(reason);
+        if (context != null && !context.isBlank()) {
+            up.append("\nProfil: ").append(context);
         }
+        String userPrompt = up.toString();
+        String key = promptKey(REASON_STREAM_PROMPT_VERSION, REASON_STREAM_SYSTEM_PROMPT, userPrompt, 0.6);
+
+        return cachedResponse(key)
+                .thenCompose(hit -> {
+                    if (hit.isPresent()) {
+                        onToken.accept(hit.get());
+                        return CompletableFuture.completedFuture(hit);
+                    }
+                    return admit("streamCommentOnReason", REASON_STREAM_PROMPT_VERSION, AiRequestScheduler.Priority.INTERACTIVE,
+                                    REASON_STREAM_SYSTEM_PROMPT, userPrompt, 120,
+                                    () -> sendStreamingCompletion("streamCommentOnReason", REASON_STREAM_PROMPT_VERSION,
+                                            REASON_STREAM_SYSTEM_PROMPT, userPrompt, 0.6, 120, onToken))
+                            .thenApply(text -> {
+                                text.ifPresent(t -> responseCache.put(key, "commentOnReason", model, REASON_STREAM_PROMPT_VERSION, t));
+                                return text;
+                            });
+                });
     }
 
     public static class AiResult {
@@ -194,26 +236,24 @@ public class OpenAIClient {
     }
 
     /**
-     * @param probe 
+     * @param probe whether to call the upstream; without a probe nothing is known about it yet, so
+     *              the result is not reachable until a real probe says otherwise
      */
     public AiHealth health(boolean probe) {
-        boolean configured = apiKey != null && !apiKey.isBlank();
+        boolean configured = isConfigured();
         if (!configured) {
             return new AiHealth(false, false, model, "API key missing");
         }
         if (!probe) {
-            return new AiHealth(true, true, model, "OK (not probed)");
+            return new AiHealth(true, false, model, "Not probed yet");
         }
         try {
-            var client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(Math.min(timeoutMillis, 2000))).build();
             // OpenAI model detail endpoint
             var request = HttpRequest.newBuilder()
                     .uri(URI.create(baseUrl + "/models/" + model))
-                    .timeout(Duration.ofMillis(Math.min(timeoutMillis, 2000)))
                     .header("Authorization", "Bearer " + apiKey)
-                    .GET()
-                    .build();
-            var response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                    .GET();
+            var response = transport.send(request, Duration.ofMillis(Math.min(timeoutMillis, 2000)));
             if (response.statusCode() < 300) {
                 return new AiHealth(true, true, model, "OK");
             } else {
@@ -229,53 +269,359 @@ public class OpenAIClient {
     }
 
     public Optional<String> weeklySummaryComment(String breakdownText, String context) {
-        if (apiKey == null || apiKey.isBlank()) return Optional.empty();
+        return weeklySummaryCommentAsync(breakdownText, context).join();
+    }
+
+    /**
+     * Non-blocking variant of {@link #weeklySummaryComment(String, String)}. The future never
+     * completes exceptionally; any failure is reported as an empty result.
+     */
+    public CompletableFuture<Optional<String>> weeklySummaryCommentAsync(String breakdownText, String context) {
+        if (!isConfigured()) return CompletableFuture.completedFuture(Optional.empty());
+
+        StringBuilder up = new StringBuilder();
+        up.append("Ringkasan: ").append(breakdownText);
+        if (context != null && !context.isBlank()) {
+            up.append("\nProfil: ").append(context);
+        }
+        up.append("\nBuat komentar sesuai format.");
+        String userPrompt = up.toString();
+
+        return chatCompletionAsync("weeklySummaryComment", AiRequestScheduler.Priority.BACKGROUND, WEEKLY_PROMPT_VERSION, WEEKLY_SYSTEM_PROMPT, userPrompt, 0.6, 160,
+                        c -> parseComment(c).isPresent())
+                .thenApply(content -> content.flatMap(this::parseComment));
+    }
+
+    private boolean isConfigured() {
+        return apiKey != null && !apiKey.isBlank();
+    }
+
+    /**
+     * False while the circuit breaker is open; callers can go straight to their fallback.
+     */
+    public boolean isAvailable() {
+        return isConfigured() && breaker.isCallPermitted();
+    }
+
+    public CircuitBreaker.State breakerState() {
+        return breaker.getState();
+    }
+
+    public Map<String, Object> responseCacheStats() {
+        return responseCache.stats();
+    }
+
+    public Map<String, Object> resilienceStats() {
+        return Map.of(
+                "breaker", breaker.snapshot(),
+                "latency", latency.snapshot()
+        );
+    }
+
+    /** Coalescing counters for identical prompts (see {@link SingleFlight}). */
+    public Map<String, Object> singleFlightStats() {
+        return inFlight.stats();
+    }
+
+    /** Pool for cache reads and stream consumption (see {@link AiWorkExecutor}). */
+    public Map<String, Object> workStats() {
+        return work.stats();
+    }
+
+    /** Rate limiter and priority queue in front of the upstream (see {@link AiRequestScheduler}). */
+    public Map<String, Object> schedulerStats() {
+        return scheduler.stats();
+    }
+
+    /**
+     * Key for both coalescing and the response cache: prompts have whitespace runs collapsed,
+     * so cosmetic differences don't defeat either.
+     */
+    private String promptKey(String promptVersion, String systemPrompt, String userPrompt, double temperature) {
+        return AiResponseCache.keyFor(model, promptVersion,
+                normalizeWhitespace(systemPrompt), normalizeWhitespace(userPrompt), temperature);
+    }
+
+    private static String normalizeWhitespace(String s) {
+        return s == null ? "" : s.strip().replaceAll("\\s+", " ");
+    }
+
+    /** Response-cache lookup off the caller's thread; a saturated pool or a failed read counts as a miss. */
+    private CompletableFuture<Optional<String>> cachedResponse(String key) {
+        return work.supplyAsync(() -> responseCache.get(key))
+                .exceptionally(e -> Optional.empty());
+    }
+
+    /**
+     * Returns the first choice's content for the prompt: from the shared response cache when
+     * present, otherwise from one chat completion over the shared transport once the scheduler
+     * admits it at {@code priority}. Content accepted by {@code cacheable} is written back to the cache.
+     */
+    private CompletableFuture<Optional<String>> chatCompletionAsync(String method, AiRequestScheduler.Priority priority,
+                                                                    String promptVersion,
+                                                                    String systemPrompt, String userPrompt,
+                                                                    double temperature, int maxTokens,
+                                                                    Predicate<String> cacheable) {
+        // Breaker open: answer before building the request so callers fall back immediately.
+        if (!breaker.isCallPermitted()) return CompletableFuture.completedFuture(Optional.empty());
+        String key = promptKey(promptVersion, systemPrompt, userPrompt, temperature);
+        return inFlight.executeAsync(key, () ->
+                cachedResponse(key)
+                        .thenCompose(hit -> {
+                            if (hit.isPresent()) return CompletableFuture.completedFuture(hit);
+                            return admit(method, promptVersion, priority, systemPrompt, userPrompt, maxTokens,
+                                            () -> sendChatCompletion(method, promptVersion, systemPrompt, userPrompt, temperature, maxTokens))
+                                    .thenCompose(content -> {
+                                        if (content.isEmpty()) return CompletableFuture.completedFuture(content);
+                                        String c = content.get();
+                                        if (!cacheable.test(c)) {
+                                            metrics.recordOutcome(method, model, promptVersion, AiMetrics.OUTCOME_PARSE_FAILURE);
+                                            return CompletableFuture.completedFuture(content);
+                                        }
+                                        metrics.recordOutcome(method, model, promptVersion, AiMetrics.OUTCOME_OK);
+                                        // The cache write blocks on JDBC: do it on the work pool, never on the
+                                        // HTTP client's thread. A saturated pool skips the write, not the answer.
+                                        return work.supplyAsync(() -> {
+                                                    responseCache.put(key, method, model, promptVersion, c);
+                                                    return content;
+                                                })
+                                                .exceptionally(e -> content);
+                                    });
+                        }));
+    }
+
+    /**
+     * Runs {@code call} once the scheduler admits it; a refused call (queue full or waited too
+     * long) completes empty so the caller uses its fallback instead of queueing behind the limit.
+     */
+    private CompletableFuture<Optional<String>> admit(String method, String promptVersion,
+                                                      AiRequestScheduler.Priority priority, String systemPrompt,
+                                                      String userPrompt, int maxTokens,
+                                                      Supplier<CompletableFuture<Optional<String>>> call) {
+        int tokens = AiRequestScheduler.estimateTokens(systemPrompt, userPrompt, maxTokens);
+        return scheduler.admit(priority, tokens)
+                .thenCompose(admitted -> {
+                    if (admitted) return call.get();
+                    metrics.recordOutcome(method, model, promptVersion, AiMetrics.OUTCOME_REJECTED);
+                    return CompletableFuture.completedFuture(Optional.<String>empty());
+                });
+    }
+
+    private CompletableFuture<Optional<String>> sendChatCompletion(String method, String promptVersion, String systemPrompt, String userPrompt, double temperature, int maxTokens) {
+        HttpRequest.Builder request;
         try {
-            var client = HttpClient.newBuilder()
-                    .connectTimeout(Duration.ofMillis(timeoutMillis))
-                    .build();
-
-            var systemPrompt = """
-                Kamu adalah asisten ramah. Analisis mood dari pengguna (maks 4 kalimat) dan berikan saran untuk minggu kedepannya. Kembalikan SELALU JSON: {"comment":"..."}.
-                FORMAT: komentar harus diawali dengan teks ringkasan persentase yang diberikan,
-                diikuti tanda em dash (—), lalu 1-2 kalimat yang suportif.
-                Contoh: "62.5% Sad, 25% Angry, 12.5% Happy — kalimat dukungan positif..."
-                Gunakan bahasa Indonesia.
-                """;
-
-            StringBuilder up = new StringBuilder();
-            up.append("Ringkasan: ").append(breakdownText);
-            if (context != null && !context.isBlank()) {
-                up.append("\nProfil: ").append(context);
-            }
-            up.append("\nBuat komentar sesuai format.");
-            String userPrompt = up.toString();
+            var body = Map.of(
+                    "model", model,
+                    "messages", List.of(
+                            Map.of("role", "system", "content", systemPrompt),
+                            Map.of("role", "user", "content", userPrompt)
+                    ),
+                    "temperature", temperature,
+                    "max_tokens", maxTokens
+            );
+
+            request = HttpRequest.newBuilder()
+                    .uri(URI.create(baseUrl + "/chat/completions"))
+                    .header("Authorization", "Bearer " + apiKey)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(body)));
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
 
+        if (!breaker.tryAcquire()) return CompletableFuture.completedFuture(Optional.empty());
+        // Trial calls after an outage get the full timeout so a too-tight adaptive value can't keep the breaker open.
+        Duration timeout = breaker.getState() == CircuitBreaker.State.HALF_OPEN ? latency.maxTimeout() : latency.timeout();
+        long started = System.nanoTime();
+        return transport.sendAsync(request, timeout)
+                .handle((response, error) -> {
+                    long elapsed = System.nanoTime() - started;
+                    recordOutcome(response == null ? -1 : response.statusCode(), error, elapsed);
+                    metrics.recordLatency(method, model, promptVersion, elapsed);
+                    if (error != null) {
+                        metrics.recordError(method, model, promptVersion, error);
+                        return Optional.<String>empty();
+                    }
+                    metrics.recordStatus(method, model, promptVersion, response.statusCode());
+                    if (response.statusCode() >= 300) return Optional.<String>empty();
+                    try {
+                        JsonNode root = mapper.readTree(response.body());
+                        recordUsage(method, promptVersion, root.path("usage"));
+                        String content = root.path("choices").path(0).path("message").path("content").asText();
+                        if (content == null || content.isBlank()) {
+                            metrics.recordOutcome(method, model, promptVersion, AiMetrics.OUTCOME_EMPTY_CONTENT);
+                            return Optional.<String>empty();
+                        }
+                        return Optional.of(content);
+                    } catch (Exception e) {
+                        metrics.recordOutcome(method, model, promptVersion, AiMetrics.OUTCOME_PARSE_FAILURE);
+                        return Optional.<String>empty();
+                    }
+                });
+    }
+
+    private CompletableFuture<Optional<String>> sendStreamingCompletion(String method, String promptVersion, String systemPrompt, String userPrompt,
+                                                                        double temperature, int maxTokens,
+                                                                        Consumer<String> onToken) {
+        HttpRequest.Builder request;
+        try {
             var body = Map.of(
                     "model", model,
                     "messages", List.of(
                             Map.of("role", "system", "content", systemPrompt),
                             Map.of("role", "user", "content", userPrompt)
                     ),
-                    "temperature", 0.6,
-                    "max_tokens", 160
+                    "temperature", temperature,
+                    "max_tokens", maxTokens,
+                    "stream", true,
+                    // Final chunk then carries the usage block
+                    "stream_options", Map.of("include_usage", true)
             );
 
-            var request = HttpRequest.newBuilder()
+            request = HttpRequest.newBuilder()
                     .uri(URI.create(baseUrl + "/chat/completions"))
-                    .timeout(Duration.ofMillis(timeoutMillis))
                     .header("Authorization", "Bearer " + apiKey)
                     .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(body)))
-                    .build();
+                    .header("Accept", "text/event-stream")
+                    .POST(HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(body)));
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+
+        if (!breaker.tryAcquire()) return CompletableFuture.completedFuture(Optional.empty());
+        Duration timeout = breaker.getState() == CircuitBreaker.State.HALF_OPEN ? latency.maxTimeout() : latency.timeout();
+        long started = System.nanoTime();
+        // Headers must arrive within the adaptive timeout; the whole stream within the transport's total timeout.
+        long deadline = started + transport.totalTimeout().toNanos();
+        return transport.sendAsync(request, timeout, HttpResponse.BodyHandlers.ofInputStream())
+                .handle((response, error) -> {
+                    if (error != null || response.statusCode() >= 300) {
+                        if (response != null) closeQuietly(response.body());
+                        long elapsed = System.nanoTime() - started;
+                        recordOutcome(response == null ? -1 : response.statusCode(), error, elapsed);
+                        metrics.recordLatency(method, model, promptVersion, elapsed);
+                        if (error != null) metrics.recordError(method, model, promptVersion, error);
+                        else metrics.recordStatus(method, model, promptVersion, response.statusCode());
+                        return CompletableFuture.completedFuture(Optional.<String>empty());
+                    }
+                    metrics.recordStatus(method, model, promptVersion, response.statusCode());
+                    // Reading blocks until the upstream sends; keep it off the HTTP client's executor.
+                    return work.supplyAsync(() -> readStream(method, promptVersion, response.body(), started, deadline, onToken))
+                            .exceptionally(e -> {
+                                // Refused by a saturated pool: says nothing about the upstream, so
+                                // hand the breaker permit back instead of recording a failure.
+                                closeQuietly(response.body());
+                                breaker.release();
+                                metrics.recordOutcome(method, model, promptVersion, AiMetrics.OUTCOME_REJECTED);
+                                return Optional.empty();
+                            });
+                })
+                .thenCompose(f -> f);
+    }
+
+    /**
+     * Consumes an SSE completion stream, handing each content delta to {@code onToken}. A
+     * stalled upstream would block the read indefinitely (transport timeouts only cover the
+     * headers), so a scheduled task closes the body at {@code deadline}, which ends the read.
+     */
+    private Optional<String> readStream(String method, String promptVersion, InputStream body,
+                                        long started, long deadline, Consumer<String> onToken) {
+        AtomicBoolean timedOut = new AtomicBoolean();
+        ScheduledFuture<?> cancel = work.schedule(() -> {
+            timedOut.set(true);
+            closeQuietly(body);
+        }, Duration.ofNanos(deadline - System.nanoTime()));
+        StringBuilder text = new StringBuilder();
+        boolean completed = false;
+        boolean parseFailed = false;
+        try (var lines = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = lines.readLine()) != null) {
+                if (!line.startsWith("data:")) continue;
+                String data = line.substring(5).trim();
+                if ("[DONE]".equals(data)) {
+                    completed = true;
+                    break;
+                }
+                JsonNode chunk = mapper.readTree(data);
+                recordUsage(method, promptVersion, chunk.path("usage"));
+                String token = chunk.path("choices").path(0).path("delta").path("content").asText("");
+                if (!token.isEmpty()) {
+                    text.append(token);
+                    onToken.accept(token);
+                }
+            }
+        } catch (JsonProcessingException e) {
+            parseFailed = true;
+        } catch (IOException | RuntimeException e) {
+            // A deadline close surfaces here too; timedOut tells the two apart
+        } finally {
+            cancel.cancel(false);
+        }
+        long elapsed = System.nanoTime() - started;
+        if (completed) breaker.onSuccess(elapsed); else breaker.onFailure(elapsed);
+        metrics.recordLatency(method, model, promptVersion, elapsed);
+        String out = text.toString().strip();
+        String outcome;
+        if (!completed && timedOut.get()) outcome = AiMetrics.OUTCOME_TIMEOUT;
+        else if (parseFailed) outcome = AiMetrics.OUTCOME_PARSE_FAILURE;
+        else if (!completed) outcome = AiMetrics.OUTCOME_TRANSPORT_ERROR;
+        else if (out.isEmpty()) outcome = AiMetrics.OUTCOME_EMPTY_CONTENT;
+        else outcome = AiMetrics.OUTCOME_OK;
+        metrics.recordOutcome(method, model, promptVersion, outcome);
+        return completed && !out.isEmpty() ? Optional.of(out) : Optional.empty();
+    }
 
-            var response = client.send(request, HttpResponse.BodyHandlers.ofString());
-            if (response.statusCode() >= 300) return Optional.empty();
+    private static void closeQuietly(InputStream in) {
+        try {
+            in.close();
+        } catch (IOException ignored) {
+        }
+    }
 
-            JsonNode root = mapper.readTree(response.body());
-            String content = root.path("choices").path(0).path("message").path("content").asText();
-            if (content == null || content.isBlank()) return Optional.empty();
+    private void recordUsage(String method, String promptVersion, JsonNode usage) {
+        if (usage == null || !usage.isObject()) return;
+        metrics.recordUsage(method, model, promptVersion,
+                usage.path("prompt_tokens").asLong(-1),
+                usage.path("completion_tokens").asLong(-1),
+                usage.path("total_tokens").asLong(-1));
+    }
 
+    /**
+     * Feeds the breaker and latency tracker. Transport errors, timeouts, 429 and 5xx count as
+     * failures; other 4xx are request problems and don't say anything about upstream health.
+     */
+    private void recordOutcome(int status, Throwable error, long elapsedNanos) {
+        if (status == 429) scheduler.onRateLimited();
+        if (error != null || status == 429 || status >= 500) {
+            breaker.onFailure(elapsedNanos);
+        } else {
+            breaker.onSuccess(elapsedNanos);
+        }
+        // Timed-out calls are recorded too: their elapsed time is a lower bound that lets the
+        // derived timeout grow when the upstream slows down.
+        latency.record(elapsedNanos);
+    }
+
+    private Optional<AiResult> parseActivities(String content, String category) {
+        try {
+            JsonNode obj = mapper.readTree(content);
+            String outCategory = obj.path("category").asText(category);
+            List<String> activities = new ArrayList<>();
+            if (obj.has("activities") && obj.get("activities").isArray()) {
+                obj.get("activities").forEach(n -> { if (n.isTextual()) activities.add(n.asText()); });
+            }
+            String tips = obj.path("tips").asText("");
+
+            if (activities.isEmpty() || tips.isBlank()) return Optional.empty();
+            return Optional.of(new AiResult(outCategory, activities, tips));
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+    }
+
+    private Optional<String> parseComment(String content) {
+        try {
             JsonNode obj = mapper.readTree(content);
             String comment = obj.path("comment").asText("");
             if (comment.isBlank()) return Optional.empty();
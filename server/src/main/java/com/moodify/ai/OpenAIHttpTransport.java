@@ -0,0 +1,170 @@
+package com.moodify.ai;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Shared HTTP transport for all calls to the OpenAI-compatible API.
+ * One long-lived {@link HttpClient} (HTTP/2 with keep-alive pooling) and a dedicated
+ * executor, instead of a fresh client, selector thread and TLS handshake per call.
+ * The executor only serves the client; blocking work belongs on {@link AiWorkExecutor}.
+ * <p>
+ * The JDK client's pool size and keep-alive are JVM-wide and read once, when the first client
+ * in the JVM is built, so they are set as JVM flags rather than from here, e.g.
+ * {@code -Djdk.httpclient.connectionPoolSize=16 -Djdk.httpclient.keepalive.timeout=60}
+ * (see {@code JAVA_OPTS} in the Dockerfile).
+ */
+@Component
+public class OpenAIHttpTransport implements DisposableBean {
+
+    private final HttpClient client;
+    private final ExecutorService executor;
+    private final Duration connectTimeout;
+    private final Duration readTimeout;
+    private final Duration totalTimeout;
+    private final int executorThreads;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder http2Responses = new LongAdder();
+    private final LongAdder http1Responses = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public OpenAIHttpTransport(
+            @Value("${openai.http.connectTimeoutMillis:2000}") int connectTimeoutMillis,
+            @Value("${openai.http.readTimeoutMillis:${openai.timeoutMillis:3500}}") int readTimeoutMillis,
+            @Value("${openai.http.totalTimeoutMillis:${openai.timeoutMillis:3500}}") int totalTimeoutMillis,
+            @Value("${openai.http.executorThreads:4}") int executorThreads) {
+        this.connectTimeout = Duration.ofMillis(connectTimeoutMillis);
+        this.readTimeout = Duration.ofMillis(readTimeoutMillis);
+        this.totalTimeout = Duration.ofMillis(Math.max(totalTimeoutMillis, readTimeoutMillis));
+        this.executorThreads = Math.max(1, executorThreads);
+
+        AtomicInteger threadSeq = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(this.executorThreads, r -> {
+            Thread t = new Thread(r, "openai-http-" + threadSeq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .executor(executor)
+                .build();
+    }
+
+    /**
+     * Sends the request with the configured read timeout. The returned future also fails with a
+     * {@link java.util.concurrent.TimeoutException} once the total timeout elapses.
+     */
+    public CompletableFuture<HttpResponse<String>> sendAsync(HttpRequest.Builder builder) {
+        return sendAsync(builder, readTimeout);
+    }
+
+    public CompletableFuture<HttpResponse<String>> sendAsync(HttpRequest.Builder builder, Duration timeout) {
+        return sendAsync(builder, timeout, HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * Generic variant for non-string bodies. For streaming handlers (e.g. {@code ofLines()}) the
+     * timeouts cover the wait for response headers only; the caller bounds body consumption.
+     */
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest.Builder builder, Duration timeout,
+                                                            HttpResponse.BodyHandler<T> bodyHandler) {
+        Duration read = timeout.compareTo(readTimeout) < 0 ? timeout : readTimeout;
+        Duration total = timeout.compareTo(totalTimeout) < 0 ? timeout : totalTimeout;
+        HttpRequest request = builder.timeout(read).build();
+        enter();
+        CompletableFuture<HttpResponse<T>> future;
+        try {
+            future = client.sendAsync(request, bodyHandler);
+        } catch (RuntimeException e) {
+            exit(null, e);
+            return CompletableFuture.failedFuture(e);
+        }
+        return future
+                .orTimeout(total.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete(this::exit);
+    }
+
+    /** Blocking variant of {@link #sendAsync(HttpRequest.Builder, Duration)}. */
+    public HttpResponse<String> send(HttpRequest.Builder builder, Duration timeout) throws Exception {
+        try {
+            return sendAsync(builder, timeout).join();
+        } catch (java.util.concurrent.CompletionException e) {
+            throw e.getCause() instanceof Exception ex ? ex : e;
+        }
+    }
+
+    public Duration readTimeout() {
+        return readTimeout;
+    }
+
+    public Duration totalTimeout() {
+        return totalTimeout;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("inFlight", inFlight.get());
+        out.put("peakInFlight", peakInFlight.get());
+        out.put("requests", requests.sum());
+        out.put("failures", failures.sum());
+        out.put("http2Responses", http2Responses.sum());
+        out.put("http1Responses", http1Responses.sum());
+        if (executor instanceof ThreadPoolExecutor tpe) {
+            out.put("executorThreads", tpe.getPoolSize());
+            out.put("executorActive", tpe.getActiveCount());
+            out.put("executorQueued", tpe.getQueue().size());
+        }
+        // Effective JVM flags; "default" means the JDK built-in value
+        out.put("connectionPoolSize", System.getProperty("jdk.httpclient.connectionPoolSize", "default"));
+        out.put("keepAliveTimeout", System.getProperty("jdk.httpclient.keepalive.timeout", "default"));
+        out.put("connectTimeoutMillis", connectTimeout.toMillis());
+        out.put("readTimeoutMillis", readTimeout.toMillis());
+        out.put("totalTimeoutMillis", totalTimeout.toMillis());
+        return out;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private void enter() {
+        requests.increment();
+        int now = inFlight.incrementAndGet();
+        peakInFlight.accumulateAndGet(now, Math::max);
+    }
+
+    private void exit(HttpResponse<?> response, Throwable error) {
+        inFlight.decrementAndGet();
+        if (error != null) {
+            failures.increment();
+        } else if (response != null) {
+            if (response.version() == HttpClient.Version.HTTP_2) http2Responses.increment();
+            else http1Responses.increment();
+        }
+    }
+}
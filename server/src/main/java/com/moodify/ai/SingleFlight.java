@@ -0,0 +1,82 @@
+package com.moodify.ai;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * In-flight registry that collapses concurrent calls for the same key into one execution.
+ * The first caller (the leader) runs the call; everyone arriving while it is running
+ * shares its result. Nothing is remembered once the call completes - caching is the caller's job.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder collapsed = new LongAdder();
+
+    /**
+     * Runs {@code call} on the calling thread unless an identical call is already in flight,
+     * in which case this blocks until that one finishes and returns its result.
+     */
+    public V execute(K key, Supplier<V> call) {
+        CompletableFuture<V> promise = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, promise);
+        if (existing != null) {
+            collapsed.increment();
+            return existing.join();
+        }
+        executions.increment();
+        try {
+            V value = call.get();
+            promise.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            promise.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, promise);
+        }
+    }
+
+    /**
+     * Asynchronous variant: the leader's future is shared (as a defensive copy) with every
+     * caller that arrives before it completes.
+     */
+    public CompletableFuture<V> executeAsync(K key, Supplier<CompletableFuture<V>> call) {
+        CompletableFuture<V> promise = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, promise);
+        if (existing != null) {
+            collapsed.increment();
+            return existing.copy();
+        }
+        executions.increment();
+        CompletableFuture<V> upstream;
+        try {
+            upstream = call.get();
+        } catch (RuntimeException e) {
+            upstream = CompletableFuture.failedFuture(e);
+        }
+        upstream.whenComplete((value, error) -> {
+            inFlight.remove(key, promise);
+            if (error != null) promise.completeExceptionally(error);
+            else promise.complete(value);
+        });
+        return promise.copy();
+    }
+
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("executions", executions.sum());
+        out.put("collapsed", collapsed.sum());
+        out.put("inFlight", inFlight.size());
+        return out;
+    }
+}
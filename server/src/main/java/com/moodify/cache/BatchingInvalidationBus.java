@@ -0,0 +1,237 @@
+package com.moodify.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Shared part of the bus: prefix dispatch, delivery after commit and batching. Published keys
+ * go to local listeners immediately and into a queue that a single publisher thread drains into
+ * batches of up to {@code batchSize} distinct keys, waiting at most {@code flushMillis} for a
+ * batch to fill. Subclasses only move {@link Batch}es between nodes.
+ */
+abstract class BatchingInvalidationBus implements InvalidationBus, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchingInvalidationBus.class);
+
+    /** Keys published by one node in one go. {@code sentAtMillis} is wall-clock, for receive lag. */
+    record Batch(String origin, long sentAtMillis, List<String> keys) {}
+
+    private record Pending(String key, long enqueuedNanos) {}
+
+    private record Listener(String prefix, Consumer<String> consumer) {}
+
+    protected final String nodeId = UUID.randomUUID().toString();
+
+    private final int batchSize;
+    private final long flushMillis;
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final LinkedBlockingQueue<Pending> pending = new LinkedBlockingQueue<>();
+    private final Thread publisher;
+    private volatile boolean running = true;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder batchesSent = new LongAdder();
+    private final LongAdder keysSent = new LongAdder();
+    private final LongAdder sendFailures = new LongAdder();
+    private final LongAdder batchesReceived = new LongAdder();
+    private final LongAdder keysReceived = new LongAdder();
+    private final LongAdder deliveries = new LongAdder();
+    private final LongAdder listenerErrors = new LongAdder();
+    private final LagWindow publishLag = new LagWindow(512);
+    private final LagWindow receiveLag = new LagWindow(512);
+
+    protected BatchingInvalidationBus(String name, int batchSize, long flushMillis) {
+        this.batchSize = Math.max(1, batchSize);
+        this.flushMillis = Math.max(0, flushMillis);
+        this.publisher = new Thread(this::publishLoop, name + "-publisher");
+        this.publisher.setDaemon(true);
+        this.publisher.start();
+    }
+
+    /** Sends a batch to the other nodes. Failures are counted and the batch is dropped. */
+    protected abstract void send(Batch batch) throws Exception;
+
+    @Override
+    public void publish(String key) {
+        if (key == null || key.isEmpty()) return;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Before commit other nodes could reload the old row and cache it again.
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(key);
+                }
+            });
+        } else {
+            enqueue(key);
+        }
+    }
+
+    @Override
+    public Subscription subscribe(String prefix, Consumer<String> consumer) {
+        Listener listener = new Listener(prefix, consumer);
+        listeners.add(listener);
+        return () -> listeners.remove(listener);
+    }
+
+    /** Called by subclasses for every batch that arrives from a node, possibly this one. */
+    protected void receive(Batch batch) {
+        if (nodeId.equals(batch.origin())) return;
+        batchesReceived.increment();
+        keysReceived.add(batch.keys().size());
+        receiveLag.record(Math.max(0, System.currentTimeMillis() - batch.sentAtMillis()));
+        for (String key : batch.keys()) deliver(key);
+    }
+
+    /**
+     * For subclasses that may have missed messages (e.g. after a reconnect): every listener gets
+     * its bare prefix, i.e. drops everything it subscribed to.
+     */
+    protected void resync() {
+        for (Listener l : listeners) notify(l, l.prefix());
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("node", nodeId);
+        out.put("subscriptions", listeners.size());
+        out.put("pending", pending.size());
+        out.put("published", published.sum());
+        out.put("batchesSent", batchesSent.sum());
+        out.put("keysSent", keysSent.sum());
+        out.put("sendFailures", sendFailures.sum());
+        out.put("batchesReceived", batchesReceived.sum());
+        out.put("keysReceived", keysReceived.sum());
+        out.put("deliveries", deliveries.sum());
+        out.put("listenerErrors", listenerErrors.sum());
+        out.put("publishLag", publishLag.snapshot());
+        out.put("receiveLag", receiveLag.snapshot());
+        return out;
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        running = false;
+        publisher.interrupt();
+        publisher.join(1000);
+        // Whatever is still queued goes out in one last batch
+        List<Pending> rest = new ArrayList<>();
+        pending.drainTo(rest);
+        if (!rest.isEmpty()) flush(rest);
+    }
+
+    private void enqueue(String key) {
+        published.increment();
+        deliver(key);
+        pending.add(new Pending(key, System.nanoTime()));
+    }
+
+    private void deliver(String key) {
+        for (Listener l : listeners) {
+            if (key.startsWith(l.prefix())) notify(l, key);
+        }
+    }
+
+    private void notify(Listener l, String key) {
+        try {
+            l.consumer().accept(key);
+            deliveries.increment();
+        } catch (Exception e) {
+            listenerErrors.increment();
+            log.warn("Invalidation listener for '{}' failed on {}: {}", l.prefix(), key, e.getMessage());
+        }
+    }
+
+    private void publishLoop() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Pending first = pending.take();
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushMillis);
+                while (batch.size() < batchSize) {
+                    long wait = deadline - System.nanoTime();
+                    Pending next = wait > 0 ? pending.poll(wait, TimeUnit.NANOSECONDS) : pending.poll();
+                    if (next == null) break;
+                    batch.add(next);
+                }
+                flush(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (!batch.isEmpty()) flush(batch);
+    }
+
+    private void flush(List<Pending> items) {
+        Set<String> keys = new LinkedHashSet<>();
+        for (Pending p : items) keys.add(p.key());
+        try {
+            send(new Batch(nodeId, System.currentTimeMillis(), List.copyOf(keys)));
+            batchesSent.increment();
+            keysSent.add(keys.size());
+        } catch (Exception e) {
+            sendFailures.increment();
+            log.warn("Could not publish {} invalidations: {}", keys.size(), e.getMessage());
+        }
+        long now = System.nanoTime();
+        for (Pending p : items) publishLag.record(TimeUnit.NANOSECONDS.toMillis(now - p.enqueuedNanos()));
+    }
+
+    /** Most recent lag samples in milliseconds. */
+    private static final class LagWindow {
+        private final long[] samples;
+        private int next;
+        private int count;
+        private long max;
+
+        LagWindow(int capacity) {
+            this.samples = new long[capacity];
+        }
+
+        synchronized void record(long millis) {
+            samples[next] = millis;
+            next = (next + 1) % samples.length;
+            if (count < samples.length) count++;
+            if (millis > max) max = millis;
+        }
+
+        synchronized Map<String, Object> snapshot() {
+            Map<String, Object> out = new LinkedHashMap<>();
+            out.put("samples", count);
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            out.put("p50Millis", percentile(sorted, 50));
+            out.put("p95Millis", percentile(sorted, 95));
+            out.put("p99Millis", percentile(sorted, 99));
+            out.put("maxMillis", max);
+            return out;
+        }
+
+        private static long percentile(long[] sorted, double p) {
+            if (sorted.length == 0) return 0;
+            int idx = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, idx))];
+        }
+    }
+}
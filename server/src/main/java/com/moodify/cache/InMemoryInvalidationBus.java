@@ -0,0 +1,39 @@
+package com.moodify.cache;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Bus for a single process. Buses attached to the same {@link Hub} behave like separate nodes
+ * (batches are handed to every other bus on the hub), which lets tests exercise cross-node
+ * invalidation without a database.
+ */
+public class InMemoryInvalidationBus extends BatchingInvalidationBus {
+
+    /** Stands in for the network between in-memory buses. */
+    public static final class Hub {
+        private final CopyOnWriteArrayList<InMemoryInvalidationBus> members = new CopyOnWriteArrayList<>();
+    }
+
+    private final Hub hub;
+
+    public InMemoryInvalidationBus(int batchSize, long flushMillis) {
+        this(new Hub(), batchSize, flushMillis);
+    }
+
+    public InMemoryInvalidationBus(Hub hub, int batchSize, long flushMillis) {
+        super("invalidation", batchSize, flushMillis);
+        this.hub = hub;
+        hub.members.add(this);
+    }
+
+    @Override
+    protected void send(Batch batch) {
+        for (InMemoryInvalidationBus member : hub.members) member.receive(batch);
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        super.destroy();
+        hub.members.remove(this);
+    }
+}
@@ -0,0 +1,40 @@
+package com.moodify.cache;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Tells every node that cached data derived from a key is stale. Keys are namespaced by prefix
+ * ({@code user:<id>}, {@code mood:<id>}, ...) and caches subscribe to the prefixes they derive from.
+ * Publishing the bare prefix means "everything under it", e.g. after a node lost messages.
+ *
+ * <p>Listeners on the publishing node run right away (after the surrounding transaction commits,
+ * if there is one); other nodes receive the key asynchronously, in batches.
+ */
+public interface InvalidationBus {
+
+    String USER_PREFIX = "user:";
+    String MOOD_PREFIX = "mood:";
+    String RECOMMENDATION_PREFIX = "recommendation:";
+
+    static String userKey(UUID userId) {
+        return USER_PREFIX + userId;
+    }
+
+    static String moodKey(UUID userId) {
+        return MOOD_PREFIX + userId;
+    }
+
+    void publish(String key);
+
+    /** Calls {@code listener} with every published key starting with {@code prefix}, on this and other nodes. */
+    Subscription subscribe(String prefix, Consumer<String> listener);
+
+    Map<String, Object> stats();
+
+    interface Subscription extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
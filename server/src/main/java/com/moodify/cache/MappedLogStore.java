@@ -0,0 +1,320 @@
+package com.moodify.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only key/value log in a memory-mapped file, with an in-memory hash index from key to
+ * record offset. Lookups are a hash probe plus a copy out of the mapping; nothing touches the
+ * heap beyond the returned value. The file survives restarts: on open the log is replayed and
+ * every record is checked against its CRC, stopping at the first torn or corrupt one. When the
+ * file is full, the newest live records are copied into a fresh file that replaces it. Dead and
+ * expired records are dropped first; only if they free less than a quarter of the file are the
+ * oldest live records evicted too, so a full file of live data costs one rewrite per quarter of
+ * the file written instead of one per put.
+ *
+ * <p>Record layout: {@code keyLen:int, valueLen:int, expiresAtMillis:long, crc:int, key, value}.
+ * A zero {@code keyLen} marks the end of the log. A removed key is an empty record that has
+ * already expired.
+ */
+public final class MappedLogStore implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(MappedLogStore.class);
+
+    private static final int HEADER_BYTES = 20;
+
+    /** Thrown by {@link #open} when another store, in this or another process, holds the file. */
+    public static final class InUseException extends IOException {
+        InUseException(Path file, Throwable cause) {
+            super(file + " is in use", cause);
+        }
+    }
+
+    private final Path file;
+    private final int capacity;
+    private final FileChannel lockChannel;
+    private final Object writeLock = new Object();
+
+    private volatile Segment segment;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder compactions = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    private MappedLogStore(Path file, int capacity, FileChannel lockChannel) {
+        this.file = file;
+        this.capacity = capacity;
+        this.lockChannel = lockChannel;
+    }
+
+    /**
+     * Opens (or creates) the log at {@code file}, replaying existing records into the index.
+     * Fails if another store (in this or another process) already has the file open.
+     */
+    public static MappedLogStore open(Path file, int capacityBytes) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        FileChannel lockChannel = FileChannel.open(file.resolveSibling(file.getFileName() + ".lock"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            if (lockChannel.tryLock() == null) throw new InUseException(file, null);
+        } catch (OverlappingFileLockException e) {
+            lockChannel.close();
+            throw new InUseException(file, e);
+        } catch (IOException e) {
+            lockChannel.close();
+            throw e;
+        }
+        MappedLogStore store = new MappedLogStore(file, capacityBytes, lockChannel);
+        try {
+            store.segment = Segment.open(file, capacityBytes);
+        } catch (IOException e) {
+            lockChannel.close();
+            throw e;
+        }
+        log.info("Opened {} with {} entries ({} bytes used)", file, store.segment.index.size(), store.segment.position);
+        return store;
+    }
+
+    /** Value stored under {@code key}, or null if absent or expired. */
+    public byte[] get(String key) {
+        Segment s = segment;
+        Integer offset = s.index.get(key);
+        if (offset == null) {
+            misses.increment();
+            return null;
+        }
+        MappedByteBuffer buf = s.buffer;
+        int keyLen = buf.getInt(offset);
+        int valueLen = buf.getInt(offset + 4);
+        long expiresAt = buf.getLong(offset + 8);
+        if (expiresAt <= System.currentTimeMillis()) {
+            misses.increment();
+            return null;
+        }
+        byte[] value = new byte[valueLen];
+        buf.get(offset + HEADER_BYTES + keyLen, value);
+        hits.increment();
+        return value;
+    }
+
+    /**
+     * Appends {@code value} under {@code key}. Compacts when the file is full; a record too large
+     * for the room left afterwards is dropped, since this is a cache and losing an entry is fine.
+     */
+    public void put(String key, byte[] value, long expiresAtMillis) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int size = HEADER_BYTES + keyBytes.length + value.length;
+        synchronized (writeLock) {
+            if (!ensureRoom(size)) {
+                rejected.increment();
+                return;
+            }
+            segment.append(key, keyBytes, value, expiresAtMillis);
+            puts.increment();
+        }
+    }
+
+    /** Drops {@code key}; the removal is logged too, so it survives a restart. */
+    public void remove(String key) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        synchronized (writeLock) {
+            if (!segment.index.containsKey(key)) return;
+            if (!ensureRoom(HEADER_BYTES + keyBytes.length)) {
+                // No room even for a tombstone: forget the key until the next restart
+                segment.index.remove(key);
+                return;
+            }
+            segment.append(key, keyBytes, new byte[0], 0L);
+        }
+    }
+
+    /** Drops every entry by starting over with an empty file. */
+    public void clear() {
+        synchronized (writeLock) {
+            rewrite(0);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Segment s = segment;
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("file", file.toString());
+        out.put("entries", s.index.size());
+        out.put("bytesUsed", s.position);
+        out.put("deadBytes", s.deadBytes);
+        out.put("capacityBytes", capacity);
+        out.put("hits", hits.sum());
+        out.put("misses", misses.sum());
+        out.put("puts", puts.sum());
+        out.put("rejected", rejected.sum());
+        out.put("compactions", compactions.sum());
+        out.put("evicted", evicted.sum());
+        return out;
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (writeLock) {
+            segment.buffer.force();
+            segment.channel.close();
+            lockChannel.close();
+        }
+    }
+
+    // Caller holds writeLock
+    private boolean ensureRoom(int size) {
+        if (segment.position + size + 4 <= capacity) return true;
+        // Keep at most three quarters of the file, so the next rewrite is a quarter-file of writes away
+        evicted.add(rewrite(capacity - capacity / 4));
+        return segment.position + size + 4 <= capacity;
+    }
+
+    /**
+     * Copies the newest live, unexpired records totalling at most {@code keepBytes} into a fresh
+     * file that replaces the current one; older live records that don't fit are dropped.
+     * Returns how many were dropped. Caller holds writeLock.
+     */
+    private int rewrite(int keepBytes) {
+        Segment old = segment;
+        Path tmp = file.resolveSibling(file.getFileName() + ".compact");
+        try {
+            Files.deleteIfExists(tmp);
+            Segment fresh = Segment.create(tmp, capacity);
+            long now = System.currentTimeMillis();
+            // Offsets grow with every append, so the highest offsets are the newest records
+            List<Map.Entry<String, Integer>> live = new ArrayList<>(old.index.entrySet());
+            live.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
+            List<Map.Entry<String, Integer>> kept = new ArrayList<>();
+            long keptBytes = 0;
+            int dropped = 0;
+            for (Map.Entry<String, Integer> e : live) {
+                int offset = e.getValue();
+                if (old.buffer.getLong(offset + 8) <= now) continue;
+                int size = old.recordSize(offset);
+                if (keptBytes + size > keepBytes) {
+                    dropped++;
+                    continue;
+                }
+                keptBytes += size;
+                kept.add(e);
+            }
+            // Oldest first again, so eviction order is preserved across rewrites
+            for (int i = kept.size() - 1; i >= 0; i--) {
+                Map.Entry<String, Integer> e = kept.get(i);
+                int offset = e.getValue();
+                int keyLen = old.buffer.getInt(offset);
+                int valueLen = old.buffer.getInt(offset + 4);
+                byte[] keyBytes = new byte[keyLen];
+                byte[] value = new byte[valueLen];
+                old.buffer.get(offset + HEADER_BYTES, keyBytes);
+                old.buffer.get(offset + HEADER_BYTES + keyLen, value);
+                fresh.append(e.getKey(), keyBytes, value, old.buffer.getLong(offset + 8));
+            }
+            fresh.buffer.force();
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            // Readers holding the old segment keep a valid mapping until they drop it.
+            segment = fresh;
+            old.channel.close();
+            compactions.increment();
+            return dropped;
+        } catch (IOException e) {
+            log.warn("Compaction of {} failed: {}", file, e.getMessage());
+            return 0;
+        }
+    }
+
+    private static final class Segment {
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        final ConcurrentHashMap<String, Integer> index = new ConcurrentHashMap<>();
+        // Written under writeLock, read racily for stats and capacity checks
+        volatile int position;
+        volatile long deadBytes;
+
+        private Segment(FileChannel channel, MappedByteBuffer buffer) {
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        static Segment create(Path path, int capacity) throws IOException {
+            FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            return new Segment(ch, ch.map(FileChannel.MapMode.READ_WRITE, 0, capacity));
+        }
+
+        static Segment open(Path path, int capacity) throws IOException {
+            Segment s = create(path, capacity);
+            s.replay(capacity);
+            return s;
+        }
+
+        private void replay(int capacity) {
+            int pos = 0;
+            CRC32 crc = new CRC32();
+            while (pos + HEADER_BYTES <= capacity) {
+                int keyLen = buffer.getInt(pos);
+                int valueLen = buffer.getInt(pos + 4);
+                if (keyLen <= 0 || valueLen < 0) break;
+                long end = (long) pos + HEADER_BYTES + keyLen + valueLen;
+                if (end > capacity) break;
+                long expiresAt = buffer.getLong(pos + 8);
+                crc.reset();
+                crc.update(buffer.slice(pos + 8, 8));
+                crc.update(buffer.slice(pos + HEADER_BYTES, keyLen + valueLen));
+                if ((int) crc.getValue() != buffer.getInt(pos + 16)) break;
+                byte[] keyBytes = new byte[keyLen];
+                buffer.get(pos + HEADER_BYTES, keyBytes);
+                Integer previous = index.put(new String(keyBytes, StandardCharsets.UTF_8), pos);
+                if (previous != null) deadBytes += recordSize(previous);
+                pos = (int) end;
+            }
+            position = pos;
+            // Anything after the last good record (a torn write) is overwritten by the next append.
+            if (pos + 4 <= capacity) buffer.putInt(pos, 0);
+        }
+
+        void append(String key, byte[] keyBytes, byte[] value, long expiresAt) {
+            int pos = position;
+            buffer.putInt(pos + 4, value.length);
+            buffer.putLong(pos + 8, expiresAt);
+            buffer.put(pos + HEADER_BYTES, keyBytes);
+            buffer.put(pos + HEADER_BYTES + keyBytes.length, value);
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(pos + 8, 8));
+            crc.update(keyBytes);
+            crc.update(value);
+            buffer.putInt(pos + 16, (int) crc.getValue());
+            int next = pos + HEADER_BYTES + keyBytes.length + value.length;
+            if (next + 4 <= buffer.capacity()) buffer.putInt(next, 0);
+            // Key length last: the record only becomes visible to a replay once it is complete.
+            buffer.putInt(pos, keyBytes.length);
+            position = next;
+            Integer previous = index.put(key, pos);
+            if (previous != null) deadBytes += recordSize(previous);
+        }
+
+        int recordSize(int offset) {
+            return HEADER_BYTES + buffer.getInt(offset) + buffer.getInt(offset + 4);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.moodify.cache;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Bus over PostgreSQL {@code LISTEN/NOTIFY}: each batch is one {@code pg_notify} on
+ * {@code channel} with a small JSON payload, and a dedicated pooled connection listens for the
+ * batches of other nodes. NOTIFY is fire-and-forget, so after the listening connection is lost
+ * and re-established every subscriber is told to drop everything under its prefix.
+ */
+public class PostgresInvalidationBus extends BatchingInvalidationBus {
+
+    private static final Logger log = LoggerFactory.getLogger(PostgresInvalidationBus.class);
+
+    private static final Pattern CHANNEL = Pattern.compile("[a-z_][a-z0-9_]{0,62}");
+    // NOTIFY payloads must stay under 8000 bytes
+    private static final int MAX_PAYLOAD_BYTES = 7900;
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+
+    private final DataSource dataSource;
+    private final ObjectMapper objectMapper;
+    private final String channel;
+    private final Thread listener;
+    private volatile boolean listening = true;
+    private volatile boolean connected;
+
+    public PostgresInvalidationBus(DataSource dataSource, ObjectMapper objectMapper, String channel,
+                                   int batchSize, long flushMillis) {
+        super("invalidation", batchSize, flushMillis);
+        if (!CHANNEL.matcher(channel).matches()) {
+            throw new IllegalArgumentException("Invalid notification channel: " + channel);
+        }
+        this.dataSource = dataSource;
+        this.objectMapper = objectMapper;
+        this.channel = channel;
+        this.listener = new Thread(this::listenLoop, "invalidation-listener");
+        this.listener.setDaemon(true);
+        this.listener.start();
+    }
+
+    @Override
+    protected void send(Batch batch) throws Exception {
+        String payload = encode(batch);
+        int bytes = payload.getBytes(StandardCharsets.UTF_8).length;
+        if (bytes > MAX_PAYLOAD_BYTES) {
+            List<String> keys = batch.keys();
+            if (keys.size() == 1) {
+                log.warn("Dropping invalidation, key too long for NOTIFY: {} bytes", bytes);
+                return;
+            }
+            int half = keys.size() / 2;
+            send(new Batch(batch.origin(), batch.sentAtMillis(), keys.subList(0, half)));
+            send(new Batch(batch.origin(), batch.sentAtMillis(), keys.subList(half, keys.size())));
+            return;
+        }
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement("select pg_notify(?, ?)")) {
+            ps.setString(1, channel);
+            ps.setString(2, payload);
+            ps.execute();
+        }
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("transport", "postgres");
+        out.put("channel", channel);
+        out.put("listening", connected);
+        out.putAll(super.stats());
+        return out;
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        listening = false;
+        listener.interrupt();
+        listener.join(2000);
+        super.destroy();
+    }
+
+    private void listenLoop() {
+        long backoff = 1000;
+        boolean firstConnect = true;
+        while (listening) {
+            try (Connection conn = dataSource.getConnection()) {
+                PGConnection pg = conn.unwrap(PGConnection.class);
+                try (Statement st = conn.createStatement()) {
+                    st.execute("LISTEN " + channel);
+                }
+                connected = true;
+                backoff = 1000;
+                if (!firstConnect) resync();
+                firstConnect = false;
+                while (listening) {
+                    PGNotification[] notifications = pg.getNotifications(1000);
+                    if (notifications == null) continue;
+                    for (PGNotification n : notifications) handle(n.getParameter());
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!listening) break;
+                log.warn("Invalidation listener lost its connection, retrying in {} ms: {}", backoff, e.getMessage());
+            } finally {
+                connected = false;
+            }
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            backoff = Math.min(MAX_BACKOFF_MILLIS, backoff * 2);
+        }
+    }
+
+    private void handle(String payload) {
+        try {
+            Map<String, Object> m = objectMapper.readValue(payload, new TypeReference<Map<String, Object>>(){});
+            Object keys = m.get("k");
+            if (!(keys instanceof List<?> list)) return;
+            receive(new Batch(String.valueOf(m.get("o")), ((Number) m.get("t")).longValue(),
+                    list.stream().map(String::valueOf).toList()));
+        } catch (Exception e) {
+            log.warn("Ignoring malformed invalidation payload: {}", e.getMessage());
+        }
+    }
+
+    private String encode(Batch batch) throws Exception {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("o", batch.origin());
+        m.put("t", batch.sentAtMillis());
+        m.put("k", batch.keys());
+        return objectMapper.writeValueAsString(m);
+    }
+}
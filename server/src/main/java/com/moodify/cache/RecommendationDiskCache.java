@@ -0,0 +1,75 @@
+package com.moodify.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * On-disk second tier for recommendations, backed by a {@link MappedLogStore} under
+ * {@code recommendation.l2.dir}. A restarted node finds its previous answers here instead of
+ * asking the AI again. If the file can't be opened the tier is absent; the file is locked per
+ * process, so every instance on a host needs its own {@code recommendation.l2.dir}.
+ */
+@Component
+public class RecommendationDiskCache implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(RecommendationDiskCache.class);
+
+    private final MappedLogStore store;
+    private final Duration ttl;
+
+    public RecommendationDiskCache(@Value("${recommendation.l2.enabled:true}") boolean enabled,
+                                   @Value("${recommendation.l2.dir:${java.io.tmpdir}/moodify-cache}") String dir,
+                                   @Value("${recommendation.l2.maxBytes:67108864}") int maxBytes,
+                                   @Value("${recommendation.cache.ttlMinutes:360}") long ttlMinutes) {
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+        MappedLogStore opened = null;
+        if (enabled) {
+            try {
+                opened = MappedLogStore.open(Path.of(dir, "recommendations.log"), maxBytes);
+            } catch (MappedLogStore.InUseException e) {
+                log.warn("Recommendation disk cache disabled: {} is already open in another process or "
+                        + "application context; set a separate recommendation.l2.dir per instance", dir);
+            } catch (Exception e) {
+                log.warn("Recommendation disk cache disabled, could not open {}: {}", dir, e.getMessage());
+            }
+        }
+        this.store = opened;
+    }
+
+    /** Serialized response, or null on a miss or when the tier is disabled. */
+    public byte[] get(String key) {
+        return store == null ? null : store.get(key);
+    }
+
+    public void put(String key, byte[] json) {
+        if (store != null) store.put(key, json, System.currentTimeMillis() + ttl.toMillis());
+    }
+
+    public void remove(String key) {
+        if (store != null) store.remove(key);
+    }
+
+    public void clear() {
+        if (store != null) store.clear();
+    }
+
+    public Map<String, Object> stats() {
+        if (store != null) return store.stats();
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("enabled", false);
+        return out;
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (store != null) store.close();
+    }
+}
@@ -0,0 +1,42 @@
+package com.moodify.config;
+
+import com.moodify.ai.CircuitBreaker;
+import com.moodify.ai.LatencyTracker;
+import com.moodify.ai.OpenAIHttpTransport;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Resilience settings for {@code OpenAIClient}: the circuit breaker and the latency tracker
+ * that derives per-call timeouts.
+ */
+@Configuration
+public class AiClientConfig {
+
+    @Bean
+    public CircuitBreaker openAiCircuitBreaker(
+            @Value("${openai.breaker.windowSize:20}") int windowSize,
+            @Value("${openai.breaker.minimumCalls:10}") int minimumCalls,
+            @Value("${openai.breaker.failureRateThreshold:50}") double failureRateThreshold,
+            @Value("${openai.breaker.slowCallRateThreshold:80}") double slowCallRateThreshold,
+            @Value("${openai.breaker.slowCallMillis:3000}") long slowCallMillis,
+            @Value("${openai.breaker.openMillis:30000}") long openMillis,
+            @Value("${openai.breaker.halfOpenCalls:3}") int halfOpenCalls) {
+        return new CircuitBreaker(windowSize, minimumCalls, failureRateThreshold, slowCallRateThreshold,
+                Duration.ofMillis(slowCallMillis), Duration.ofMillis(openMillis), halfOpenCalls);
+    }
+
+    @Bean
+    public LatencyTracker openAiLatencyTracker(
+            OpenAIHttpTransport transport,
+            @Value("${openai.adaptiveTimeout.samples:256}") int samples,
+            @Value("${openai.adaptiveTimeout.percentile:99}") double percentile,
+            @Value("${openai.adaptiveTimeout.multiplier:1.5}") double multiplier,
+            @Value("${openai.adaptiveTimeout.minMillis:800}") long minMillis) {
+        return new LatencyTracker(samples, percentile, multiplier,
+                Duration.ofMillis(minMillis), transport.totalTimeout());
+    }
+}
@@ -0,0 +1,77 @@
+package com.moodify.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.moodify.dto.RecommendationResponse;
+import com.moodify.service.CachedRecommendation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * In-memory caches. The recommendation cache is bounded by an estimated size in bytes
+ * (keys carry free-text context, so entry counts say little) and uses Caffeine's
+ * frequency-based admission, so one-off keys don't push out popular ones. Fallback answers
+ * expire after {@code recommendation.cache.fallbackTtlSeconds} so one failed AI call doesn't
+ * pin them for the full TTL.
+ */
+@Configuration
+public class CacheConfig {
+
+    @Bean
+    public Cache<String, CachedRecommendation> recommendationCache(
+            @Value("${recommendation.cache.maxWeightBytes:8388608}") long maxWeightBytes,
+            @Value("${recommendation.cache.ttlMinutes:360}") long ttlMinutes,
+            @Value("${recommendation.cache.fallbackTtlSeconds:60}") long fallbackTtlSeconds) {
+        return Caffeine.newBuilder()
+                .maximumWeight(maxWeightBytes)
+                .weigher(CacheConfig::estimateBytes)
+                .expireAfter(writeExpiry(Duration.ofMinutes(ttlMinutes), Duration.ofSeconds(fallbackTtlSeconds)))
+                .recordStats()
+                .build();
+    }
+
+    /** Expire-after-write with the TTL picked per entry. */
+    static Expiry<String, CachedRecommendation> writeExpiry(Duration ttl, Duration fallbackTtl) {
+        long ttlNanos = ttl.toNanos();
+        long fallbackNanos = Math.min(fallbackTtl.toNanos(), ttlNanos);
+        return new Expiry<>() {
+            @Override
+            public long expireAfterCreate(String key, CachedRecommendation value, long currentTime) {
+                return value.isFallback() ? fallbackNanos : ttlNanos;
+            }
+
+            @Override
+            public long expireAfterUpdate(String key, CachedRecommendation value, long currentTime, long currentDuration) {
+                return expireAfterCreate(key, value, currentTime);
+            }
+
+            @Override
+            public long expireAfterRead(String key, CachedRecommendation value, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+        };
+    }
+
+    /**
+     * Rough retained size: UTF-16 chars plus a fixed overhead per object, counted twice for the
+     * value to leave room for the pre-serialized JSON a hot entry keeps.
+     */
+    static int estimateBytes(String key, CachedRecommendation entry) {
+        RecommendationResponse value = entry.response();
+        long bytes = 64 + 2L * key.length();
+        bytes += 64 + 2L * length(value.getCategory()) + 2L * length(value.getTips()) + 2L * length(value.getPromptVersion());
+        if (value.getActivities() != null) {
+            for (String a : value.getActivities()) bytes += 40 + 2L * length(a);
+        }
+        bytes += bytes - 64 - 2L * key.length();
+        return (int) Math.min(Integer.MAX_VALUE, bytes);
+    }
+
+    private static int length(String s) {
+        return s == null ? 0 : s.length();
+    }
+}
@@ -0,0 +1,34 @@
+package com.moodify.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.moodify.cache.InMemoryInvalidationBus;
+import com.moodify.cache.InvalidationBus;
+import com.moodify.cache.PostgresInvalidationBus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Cross-node cache invalidation. {@code cache.invalidation.mode=postgres} uses LISTEN/NOTIFY on
+ * the application database; {@code memory} (the default, and the dev profile) keeps
+ * invalidations inside this process.
+ */
+@Configuration
+public class InvalidationBusConfig {
+
+    @Bean
+    public InvalidationBus invalidationBus(
+            DataSource dataSource,
+            ObjectMapper objectMapper,
+            @Value("${cache.invalidation.mode:memory}") String mode,
+            @Value("${cache.invalidation.channel:moodify_invalidation}") String channel,
+            @Value("${cache.invalidation.batchSize:64}") int batchSize,
+            @Value("${cache.invalidation.flushMillis:20}") long flushMillis) {
+        if ("postgres".equalsIgnoreCase(mode)) {
+            return new PostgresInvalidationBus(dataSource, objectMapper, channel, batchSize, flushMillis);
+        }
+        return new InMemoryInvalidationBus(batchSize, flushMillis);
+    }
+}
@@ -0,0 +1,12 @@
+package com.moodify.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables {@code @Scheduled} background jobs (cache purges, refreshes).
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
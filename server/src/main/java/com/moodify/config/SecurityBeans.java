@@ -1,11 +1,16 @@
 package com.moodify.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
 
 @Configuration
@@ -15,10 +20,32 @@ public class SecurityBeans {
         http
                 .csrf(csrf -> csrf.disable())
                 .cors(Customizer.withDefaults())
-                .authorizeHttpRequests(auth -> auth.anyRequest().permitAll());
+                .authorizeHttpRequests(auth -> auth
+                        // Operational endpoints that can cost every replica a cold cache
+                        .requestMatchers(HttpMethod.DELETE, "/api/recommendations/cache").hasRole("ADMIN")
+                        .anyRequest().permitAll())
+                .httpBasic(Customizer.withDefaults());
         return http.build();
     }
 
+    /**
+     * The only Spring Security account: an operator for admin endpoints, via HTTP Basic. Without
+     * {@code admin.password} there is no account and admin endpoints always answer 401.
+     */
+    @Bean
+    public UserDetailsService adminUsers(@Value("${admin.username:admin}") String username,
+                                         @Value("${admin.password:}") String password,
+                                         PasswordEncoder passwordEncoder) {
+        InMemoryUserDetailsManager users = new InMemoryUserDetailsManager();
+        if (!password.isBlank()) {
+            users.createUser(User.withUsername(username)
+                    .password(passwordEncoder.encode(password))
+                    .roles("ADMIN")
+                    .build());
+        }
+        return users;
+    }
+
     @Bean
     public PasswordEncoder passwordEncoder() {
         return new BCryptPasswordEncoder();
@@ -1,6 +1,10 @@
 package com.moodify.controller;
 
+import com.moodify.ai.AiHealthProber;
+import com.moodify.ai.AiMetrics;
 import com.moodify.ai.OpenAIClient;
+import com.moodify.ai.OpenAIHttpTransport;
+import com.moodify.service.AiCommentService;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -11,19 +15,43 @@ import java.util.Map;
 public class AiStatusController {
 
     private final OpenAIClient openAIClient;
+    private final OpenAIHttpTransport transport;
+    private final AiMetrics aiMetrics;
+    private final AiHealthProber healthProber;
+    private final AiCommentService aiCommentService;
 
-    public AiStatusController(OpenAIClient openAIClient) {
+    public AiStatusController(OpenAIClient openAIClient, OpenAIHttpTransport transport, AiMetrics aiMetrics,
+                              AiHealthProber healthProber, AiCommentService aiCommentService) {
         this.openAIClient = openAIClient;
+        this.transport = transport;
+        this.aiMetrics = aiMetrics;
+        this.healthProber = healthProber;
+        this.aiCommentService = aiCommentService;
     }
 
+    /**
+     * Served from the background prober's snapshot; {@code probe=true} forces a fresh probe
+     * (shared with any probe already running).
+     */
     @GetMapping("/api/ai/status")
     public Map<String, Object> status(@RequestParam(name = "probe", defaultValue = "false") boolean probe) {
-        var health = openAIClient.health(probe);
+        var snapshot = probe ? healthProber.refreshNow() : healthProber.current();
+        Map<String, Object> out = snapshot.toMap();
+        out.put("breaker", openAIClient.breakerState().name());
+        return out;
+    }
+
+    @GetMapping("/api/ai/metrics")
+    public Map<String, Object> metrics() {
         return Map.of(
-                "configured", health.isConfigured(),
-                "reachable", health.isReachable(),
-                "model", health.getModel(),
-                "error", health.getError()
+                "transport", transport.stats(),
+                "work", openAIClient.workStats(),
+                "singleFlight", openAIClient.singleFlightStats(),
+                "resilience", openAIClient.resilienceStats(),
+                "responseCache", openAIClient.responseCacheStats(),
+                "scheduler", openAIClient.schedulerStats(),
+                "calls", aiMetrics.snapshot(),
+                "commentBacklog", aiCommentService.backlogStats()
         );
     }
 }
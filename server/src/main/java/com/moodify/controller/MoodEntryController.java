@@ -1,27 +1,29 @@
 package com.moodify.controller;
 
 import com.moodify.entity.User;
+import com.moodify.dto.BulkPastMoodRequest;
 import com.moodify.dto.PastMoodRequest;
 import com.moodify.service.DailyMoodService;
 import com.moodify.dto.SubmitMoodRequest;
-import com.moodify.ai.OpenAIClient;
+import com.moodify.service.AiCommentService;
+import com.moodify.service.ProfileContextService;
 import com.moodify.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDate;
-import java.time.Period;
 import java.util.UUID;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/mood-entries")
 public class MoodEntryController {
 
+    private static final long SSE_TIMEOUT_MILLIS = 30_000;
+
     @Autowired
     private UserService userService;
 
@@ -29,7 +31,10 @@ public class MoodEntryController {
     private DailyMoodService dailyMoodService;
 
     @Autowired
-    private OpenAIClient openAIClient;
+    private AiCommentService aiCommentService;
+
+    @Autowired
+    private ProfileContextService profileContextService;
 
     @PostMapping("/users/{id}/mood")
     public ResponseEntity<?> submitMoodToday(@PathVariable UUID id, @RequestBody SubmitMoodRequest body) {
@@ -40,15 +45,17 @@ public class MoodEntryController {
         }
         try {
             var saved = dailyMoodService.submitTodayMood(u, mood, body.getReason());
-            // Generate AI comment (persist inside service method)
+            // AI comment is generated in the background and persisted via DailyMoodService.addAiComment
+            String aiStatus = AiCommentService.STATUS_NONE;
             if (body.getReason() != null && !body.getReason().isBlank()) {
-                String profile = buildUserProfileContext(u);
-                openAIClient.commentOnReason(mood, body.getReason(), profile)
-                        .ifPresent(c -> dailyMoodService.addAiComment(saved, c));
+                String profile = profileContextService.contextFor(u);
+                aiStatus = Boolean.TRUE.equals(body.getStreamComment())
+                        ? aiCommentService.enrichForStream(saved, mood, body.getReason(), profile)
+                        : aiCommentService.enrichAsync(saved, mood, body.getReason(), profile);
             }
             var out = new com.moodify.dto.DailyMoodResponse(
                     saved.getDate(), saved.getDayName(), saved.getWeekNumber(), saved.getMood(), saved.getCreatedAt(),
-                    saved.getReason(), saved.getAiComment()
+                    saved.getReason(), saved.getAiComment(), aiStatus
             );
             return ResponseEntity.ok(out);
         } catch (IllegalStateException ex) {
@@ -66,14 +73,16 @@ public class MoodEntryController {
         }
         try {
             var saved = dailyMoodService.submitPastMood(u, req.getDate(), req.getMood(), req.getReason());
+            String aiStatus = AiCommentService.STATUS_NONE;
             if (req.getReason() != null && !req.getReason().isBlank()) {
-                String profile = buildUserProfileContext(u);
-                openAIClient.commentOnReason(req.getMood(), req.getReason(), profile)
-                        .ifPresent(c -> dailyMoodService.addAiComment(saved, c));
+                String profile = profileContextService.contextFor(u);
+                aiStatus = Boolean.TRUE.equals(req.getStreamComment())
+                        ? aiCommentService.enrichForStream(saved, req.getMood(), req.getReason(), profile)
+                        : aiCommentService.enrichAsync(saved, req.getMood(), req.getReason(), profile);
             }
             var out = new com.moodify.dto.DailyMoodResponse(
                     saved.getDate(), saved.getDayName(), saved.getWeekNumber(), saved.getMood(), saved.getCreatedAt(),
-                    saved.getReason(), saved.getAiComment()
+                    saved.getReason(), saved.getAiComment(), aiStatus
             );
             return ResponseEntity.ok(out);
         } catch (IllegalArgumentException | IllegalStateException ex) {
@@ -81,40 +90,72 @@ public class MoodEntryController {
         }
     }
 
-    private String buildUserProfileContext(User u) {
-        StringBuilder sb = new StringBuilder();
-        if (u.getBirthDate() != null) {
-            try {
-                int age = Period.between(u.getBirthDate(), LocalDate.now()).getYears();
-                if (age > 0 && age < 120) {
-                    if (sb.length() > 0) sb.append(" | ");
-                    sb.append("umur:").append(age);
-                }
-            } catch (Exception ignored) {}
+    /**
+     * Backfills many past days in one transaction; all entries are rejected if any is invalid.
+     * AI comments for entries with a reason are queued and generated later in the background.
+     */
+    @PostMapping("/users/{id}/mood/past/bulk")
+    public ResponseEntity<?> submitPastMoodsBulk(@PathVariable UUID id, @RequestBody BulkPastMoodRequest req) {
+        User u = userService.getById(id);
+        if (req.getEntries() == null || req.getEntries().isEmpty()) {
+            return ResponseEntity.badRequest().body("entries are required");
         }
-        if (u.getGender() != null && !u.getGender().isBlank()) {
-            if (sb.length() > 0) sb.append(" | ");
-            sb.append("gender:").append(u.getGender());
+        try {
+            var saved = dailyMoodService.submitPastMoods(u, req.getEntries().stream()
+                    .map(e -> e == null ? null : new DailyMoodService.PastMood(e.getDate(), e.getMood(), e.getReason()))
+                    .toList());
+            var out = saved.stream().map(e -> new com.moodify.dto.DailyMoodResponse(
+                    e.getDate(), e.getDayName(), e.getWeekNumber(), e.getMood(), e.getCreatedAt(),
+                    e.getReason(), e.getAiComment(), aiCommentService.enqueue(e)
+            )).toList();
+            return ResponseEntity.ok(out);
+        } catch (IllegalArgumentException | IllegalStateException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
         }
-        String hj = u.getHobbiesJson();
-        if (hj != null && !hj.isBlank()) {
-            try {
-                List<String> hobbies = new ObjectMapper().readValue(hj, new TypeReference<List<String>>(){});
-                if (hobbies != null && !hobbies.isEmpty()) {
-                    if (sb.length() > 0) sb.append(" | ");
-                    List<String> trimmed = hobbies.size() > 6 ? hobbies.subList(0, 6) : hobbies;
-                    sb.append("hobi:").append(String.join(",", trimmed));
-                }
-            } catch (Exception ignored) {
-                // fallback: include raw string but keep short
-                String raw = hj.trim();
-                if (!raw.isEmpty()) {
-                    if (sb.length() > 0) sb.append(" | ");
-                    sb.append("hobi:").append(raw.length() > 120 ? raw.substring(0, 120) : raw);
-                }
-            }
+    }
+
+    @GetMapping("/users/{id}/mood/{date}")
+    public ResponseEntity<?> getMoodForDate(@PathVariable UUID id, @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        User u = userService.getById(id);
+        return dailyMoodService.findEntry(u, date)
+                .<ResponseEntity<?>>map(e -> ResponseEntity.ok(new com.moodify.dto.DailyMoodResponse(
+                        e.getDate(), e.getDayName(), e.getWeekNumber(), e.getMood(), e.getCreatedAt(),
+                        e.getReason(), e.getAiComment(), aiCommentService.statusOf(e)
+                )))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Streams the AI comment for the entry as Server-Sent Events: {@code token} events carry text
+     * deltas as they arrive from the model, a final {@code done} event carries the full (persisted)
+     * comment, empty when none could be generated.
+     */
+    @GetMapping(value = "/users/{id}/mood/{date}/ai-comment/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAiComment(@PathVariable UUID id,
+                                      @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        User u = userService.getById(id);
+        SseEmitter emitter = new SseEmitter(SSE_TIMEOUT_MILLIS);
+        var entry = dailyMoodService.findEntry(u, date).orElse(null);
+        if (entry == null) {
+            sendQuietly(emitter, "done", "");
+            emitter.complete();
+            return emitter;
         }
-        String out = sb.toString();
-        return out.length() > 400 ? out.substring(0, 400) : out;
+        String profile = profileContextService.contextFor(u);
+        aiCommentService.streamComment(entry, profile, token -> sendQuietly(emitter, "token", token))
+                .whenComplete((comment, error) -> {
+                    sendQuietly(emitter, "done", comment == null ? "" : comment.orElse(""));
+                    emitter.complete();
+                });
+        return emitter;
     }
+
+    private static void sendQuietly(SseEmitter emitter, String event, String data) {
+        try {
+            emitter.send(SseEmitter.event().name(event).data(data));
+        } catch (Exception ignored) {
+            // Client went away; generation continues so the comment is still persisted.
+        }
+    }
+
 }
\ No newline at end of file
@@ -1,13 +1,16 @@
 package com.moodify.controller;
 
 import com.moodify.dto.DailyRecommendationRequest;
-import com.moodify.dto.RecommendationResponse;
 import com.moodify.dto.WeekRecommendationRequest;
+import com.moodify.service.CachedRecommendation;
 import com.moodify.service.RecommendationService;
 import jakarta.validation.Valid;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/recommendations")
 public class RecommendationController {
@@ -19,12 +22,42 @@ public class RecommendationController {
     }
 
     @PostMapping("/daily")
-    public ResponseEntity<RecommendationResponse> daily(@Valid @RequestBody DailyRecommendationRequest request) {
-        return ResponseEntity.ok(service.recommendDaily(request));
+    public ResponseEntity<?> daily(@Valid @RequestBody DailyRecommendationRequest request) {
+        return toResponse(service.recommendDaily(request));
     }
 
     @PostMapping("/week")
-    public ResponseEntity<RecommendationResponse> week(@Valid @RequestBody WeekRecommendationRequest request) {
-        return ResponseEntity.ok(service.recommendForWeek(request));
+    public ResponseEntity<?> week(@Valid @RequestBody WeekRecommendationRequest request) {
+        return toResponse(service.recommendForWeek(request));
+    }
+
+    @GetMapping("/stats")
+    public Map<String, Object> stats() {
+        return Map.of(
+                "singleFlight", service.singleFlightStats(),
+                "cache", service.cacheStats(),
+                "precomputed", service.precomputeStats()
+        );
+    }
+
+    /**
+     * Clears one cached answer ({@code key} as shown by the cache) or, without a key, all of them
+     * including the precomputed ones. Admin only (see SecurityBeans): a full wipe sends every
+     * replica back to generating through the AI.
+     */
+    @DeleteMapping("/cache")
+    public Map<String, Object> invalidate(@RequestParam(required = false) String key) {
+        String cacheKey = key == null || key.isBlank() ? null : key;
+        service.invalidate(cacheKey);
+        return Map.of("invalidated", cacheKey == null ? "all" : cacheKey);
+    }
+
+    // Hot cache entries carry their JSON already serialized; write those bytes directly.
+    private ResponseEntity<?> toResponse(CachedRecommendation.View view) {
+        byte[] json = view.json();
+        if (json != null) {
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(json);
+        }
+        return ResponseEntity.ok(view.response());
     }
 }
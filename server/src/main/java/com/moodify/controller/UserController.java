@@ -16,11 +16,14 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.moodify.dto.MoodHistorySummaryResponse;
 import com.moodify.dto.UserRegisterRequest;
 import com.moodify.dto.UserResponse;
 import com.moodify.dto.WeeklyStatsResponse;
 import com.moodify.entity.User;
 import com.moodify.service.DailyMoodService;
+import com.moodify.service.MoodHistoryService;
+import com.moodify.service.MoodQueryService;
 import com.moodify.service.UserService;
 import com.moodify.service.WeeklyStatsService;
 
@@ -39,15 +42,17 @@ public class UserController {
     @Autowired
     private WeeklyStatsService weeklyStatsService;
 
+    @Autowired
+    private MoodQueryService moodQueryService;
+
+    @Autowired
+    private MoodHistoryService moodHistoryService;
+
     @GetMapping("/{id}/week")
     public java.util.List<com.moodify.dto.DailyMoodResponse> getWeek(@PathVariable UUID id,
                                                                      @RequestParam(name = "weekNumber", required = false) Integer weekNumber) {
         User u = userService.getById(id);
-        var entries = (weekNumber != null) ? dailyMoodService.getWeek(u, weekNumber) : dailyMoodService.getUpcomingWeek(u);
-        return entries.stream().map(e -> new com.moodify.dto.DailyMoodResponse(
-                e.getDate(), e.getDayName(), e.getWeekNumber(), e.getMood(), e.getCreatedAt(),
-                e.getReason(), e.getAiComment()
-        )).toList();
+        return moodQueryService.week(u, weekNumber);
     }
 
     @GetMapping("/{id}/stats")
@@ -68,6 +73,13 @@ public class UserController {
             .toList();
     }
 
+    @GetMapping("/{id}/moods/summary")
+    public MoodHistorySummaryResponse getMoodSummary(@PathVariable UUID id,
+                                                     @RequestParam(name = "days", defaultValue = "35") int days) {
+        User u = userService.getById(id);
+        return moodHistoryService.summary(u, days);
+    }
+
     @PostMapping({"", "/register"})
     public ResponseEntity<UserResponse> register(@Valid @RequestBody UserRegisterRequest req) {
         User saved = userService.register(req);
@@ -86,12 +98,7 @@ public class UserController {
     @GetMapping("/{id}/currentWeek")
     public Map<String, Integer> getCurrentWeekNumber(@PathVariable UUID id) {
         User u = userService.getById(id);
-        var weekEntries = dailyMoodService.getCurrentWeek(u);
-        int weekNumber = weekEntries.stream()
-                .findFirst()
-                .map(com.moodify.entity.DailyMoodEntry::getWeekNumber)
-                .orElse(1);
-        return Map.of("weekNumber", weekNumber);
+        return Map.of("weekNumber", moodQueryService.currentWeekNumber(u));
     }
 
     @PostMapping("/login")
@@ -2,6 +2,7 @@ package com.moodify.controller;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.moodify.cache.InvalidationBus;
 import com.moodify.dto.UserInfoResponse;
 import com.moodify.dto.UserInfoUpdateRequest;
 import com.moodify.entity.User;
@@ -24,10 +25,13 @@ public class UserInfoController {
 
     private final UserService userService;
     private final ObjectMapper objectMapper;
+    private final InvalidationBus invalidationBus;
 
-    public UserInfoController(UserService userService, ObjectMapper objectMapper) {
+    public UserInfoController(UserService userService, ObjectMapper objectMapper,
+                              InvalidationBus invalidationBus) {
         this.userService = userService;
         this.objectMapper = objectMapper;
+        this.invalidationBus = invalidationBus;
     }
 
     @GetMapping("/{id}/info")
@@ -56,6 +60,7 @@ public class UserInfoController {
             }
         }
         userService.save(u);
+        invalidationBus.publish(InvalidationBus.userKey(u.getId()));
 
         List<String> hobbies = Collections.emptyList();
         try {
@@ -0,0 +1,17 @@
+package com.moodify.dto;
+
+import java.util.List;
+
+public class BulkPastMoodRequest {
+
+    // Each item uses date, mood and reason; streamComment is ignored, comments are queued
+    private List<PastMoodRequest> entries;
+
+    public List<PastMoodRequest> getEntries() {
+        return entries;
+    }
+
+    public void setEntries(List<PastMoodRequest> entries) {
+        this.entries = entries;
+    }
+}
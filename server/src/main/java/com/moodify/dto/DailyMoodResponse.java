@@ -11,6 +11,7 @@ public class DailyMoodResponse {
     private OffsetDateTime createdAt;
     private String reason;
     private String aiComment;
+    private String aiCommentStatus;
 
     public DailyMoodResponse() {}
 
@@ -29,6 +30,12 @@ public class DailyMoodResponse {
         this.aiComment = aiComment;
     }
 
+    public DailyMoodResponse(LocalDate date, String dayName, Integer weekNumber, Integer mood,
+                             OffsetDateTime createdAt, String reason, String aiComment, String aiCommentStatus) {
+        this(date, dayName, weekNumber, mood, createdAt, reason, aiComment);
+        this.aiCommentStatus = aiCommentStatus;
+    }
+
     public LocalDate getDate() {
         return date;
     }
@@ -56,4 +63,8 @@ public class DailyMoodResponse {
     public String getAiComment() {
         return aiComment;
     }
+
+    public String getAiCommentStatus() {
+        return aiCommentStatus;
+    }
 }
@@ -0,0 +1,37 @@
+package com.moodify.dto;
+
+import java.time.LocalDate;
+
+public class MoodHistorySummaryResponse {
+    private final LocalDate trackedFrom;
+    private final int currentStreak;
+    private final int longestStreak;
+    private final LocalDate from;
+    private final LocalDate to;
+    private final int filledDays;
+    private final Double averageMood;
+    // One mood per day from "from" to "to", 0 for days without an entry
+    private final int[] calendar;
+
+    public MoodHistorySummaryResponse(LocalDate trackedFrom, int currentStreak, int longestStreak,
+                                      LocalDate from, LocalDate to, int filledDays, Double averageMood,
+                                      int[] calendar) {
+        this.trackedFrom = trackedFrom;
+        this.currentStreak = currentStreak;
+        this.longestStreak = longestStreak;
+        this.from = from;
+        this.to = to;
+        this.filledDays = filledDays;
+        this.averageMood = averageMood;
+        this.calendar = calendar;
+    }
+
+    public LocalDate getTrackedFrom() { return trackedFrom; }
+    public int getCurrentStreak() { return currentStreak; }
+    public int getLongestStreak() { return longestStreak; }
+    public LocalDate getFrom() { return from; }
+    public LocalDate getTo() { return to; }
+    public int getFilledDays() { return filledDays; }
+    public Double getAverageMood() { return averageMood; }
+    public int[] getCalendar() { return calendar; }
+}
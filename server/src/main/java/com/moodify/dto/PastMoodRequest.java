@@ -13,6 +13,9 @@ public class PastMoodRequest {
 
     private String reason;
 
+    // Client will open the SSE stream for the AI comment instead of waiting for background generation
+    private Boolean streamComment;
+
     public LocalDate getDate() {
         return date;
     }
@@ -36,4 +39,12 @@ public class PastMoodRequest {
     public void setReason(String reason) {
         this.reason = reason;
     }
+
+    public Boolean getStreamComment() {
+        return streamComment;
+    }
+
+    public void setStreamComment(Boolean streamComment) {
+        this.streamComment = streamComment;
+    }
 }
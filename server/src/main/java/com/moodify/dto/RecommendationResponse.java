@@ -1,41 +1,51 @@
 package com.moodify.dto;
 
-import java.util.List;
-
-public class RecommendationResponse {
-    private int score;
-    private String category; 
-    private List<String> activities;
-    private String tips;
-    private String promptVersion; 
-    private boolean cached;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
-    public RecommendationResponse() {}
+import java.util.List;
 
-    public RecommendationResponse(int score, String category, List<String> activities, String tips, String promptVersion, boolean cached) {
+/**
+ * Immutable so one instance can be shared by every cache hit; use {@link #withCached(boolean)}
+ * for the other flag value instead of copying.
+ */
+public final class RecommendationResponse {
+    private final int score;
+    private final String category;
+    private final List<String> activities;
+    private final String tips;
+    private final String promptVersion;
+    private final boolean cached;
+
+    @JsonCreator
+    public RecommendationResponse(@JsonProperty("score") int score,
+                                  @JsonProperty("category") String category,
+                                  @JsonProperty("activities") List<String> activities,
+                                  @JsonProperty("tips") String tips,
+                                  @JsonProperty("promptVersion") String promptVersion,
+                                  @JsonProperty("cached") boolean cached) {
         this.score = score;
         this.category = category;
-        this.activities = activities;
+        this.activities = activities == null ? List.of() : List.copyOf(activities);
         this.tips = tips;
         this.promptVersion = promptVersion;
         this.cached = cached;
     }
 
+    public RecommendationResponse withCached(boolean cached) {
+        if (cached == this.cached) return this;
+        return new RecommendationResponse(score, category, activities, tips, promptVersion, cached);
+    }
+
     public int getScore() { return score; }
-    public void setScore(int score) { this.score = score; }
 
     public String getCategory() { return category; }
-    public void setCategory(String category) { this.category = category; }
 
     public List<String> getActivities() { return activities; }
-    public void setActivities(List<String> activities) { this.activities = activities; }
 
     public String getTips() { return tips; }
-    public void setTips(String tips) { this.tips = tips; }
 
     public String getPromptVersion() { return promptVersion; }
-    public void setPromptVersion(String promptVersion) { this.promptVersion = promptVersion; }
 
     public boolean isCached() { return cached; }
-    public void setCached(boolean cached) { this.cached = cached; }
 }
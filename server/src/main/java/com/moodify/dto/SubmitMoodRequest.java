@@ -12,9 +12,15 @@ public class SubmitMoodRequest {
 
     private String reason;
 
+    // Client will open the SSE stream for the AI comment instead of waiting for background generation
+    private Boolean streamComment;
+
     public Integer getMood() { return mood; }
     public void setMood(Integer mood) { this.mood = mood; }
 
     public String getReason() { return reason; }
     public void setReason(String reason) { this.reason = reason; }
+
+    public Boolean getStreamComment() { return streamComment; }
+    public void setStreamComment(Boolean streamComment) { this.streamComment = streamComment; }
 }
@@ -0,0 +1,58 @@
+package com.moodify.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.OffsetDateTime;
+
+@Entity
+@Table(name = "ai_response_cache")
+public class AiResponseCacheEntry {
+
+    // SHA-256 hex of model, prompt version, system prompt, user prompt and temperature
+    @Id
+    @Column(name = "cache_key", length = 64)
+    private String cacheKey;
+
+    @Column(name = "method", nullable = false, length = 32)
+    private String method;
+
+    @Column(name = "model", nullable = false, length = 64)
+    private String model;
+
+    @Column(name = "prompt_version", nullable = false, length = 32)
+    private String promptVersion;
+
+    @Column(name = "content", nullable = false, columnDefinition = "TEXT")
+    private String content;
+
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private OffsetDateTime expiresAt;
+
+    public AiResponseCacheEntry() {
+    }
+
+    public AiResponseCacheEntry(String cacheKey, String method, String model, String promptVersion,
+                                String content, OffsetDateTime createdAt, OffsetDateTime expiresAt) {
+        this.cacheKey = cacheKey;
+        this.method = method;
+        this.model = model;
+        this.promptVersion = promptVersion;
+        this.content = content;
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getCacheKey() { return cacheKey; }
+    public String getMethod() { return method; }
+    public String getModel() { return model; }
+    public String getPromptVersion() { return promptVersion; }
+    public String getContent() { return content; }
+    public OffsetDateTime getCreatedAt() { return createdAt; }
+    public OffsetDateTime getExpiresAt() { return expiresAt; }
+}
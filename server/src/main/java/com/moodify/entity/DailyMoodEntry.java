@@ -1,6 +1,7 @@
 package com.moodify.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 
@@ -44,6 +45,14 @@ public class DailyMoodEntry {
     @Column(name = "ai_comment")
     private String aiComment;
 
+    // Comment backlog bookkeeping, see AiCommentService
+    @ColumnDefault("0")
+    @Column(name = "ai_comment_attempts", nullable = false)
+    private int aiCommentAttempts;
+
+    @Column(name = "ai_comment_claimed_at")
+    private OffsetDateTime aiCommentClaimedAt;
+
     public DailyMoodEntry() {
     }
 
@@ -137,4 +146,20 @@ public class DailyMoodEntry {
     public void setAiComment(String aiComment) {
         this.aiComment = aiComment;
     }
+
+    public int getAiCommentAttempts() {
+        return aiCommentAttempts;
+    }
+
+    public void setAiCommentAttempts(int aiCommentAttempts) {
+        this.aiCommentAttempts = aiCommentAttempts;
+    }
+
+    public OffsetDateTime getAiCommentClaimedAt() {
+        return aiCommentClaimedAt;
+    }
+
+    public void setAiCommentClaimedAt(OffsetDateTime aiCommentClaimedAt) {
+        this.aiCommentClaimedAt = aiCommentClaimedAt;
+    }
 }
@@ -0,0 +1,86 @@
+package com.moodify.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+import java.util.Objects;
+
+@Entity
+@Table(name = "precomputed_recommendation")
+@IdClass(PrecomputedRecommendation.Key.class)
+public class PrecomputedRecommendation {
+
+    @Id
+    @Column(name = "score")
+    private int score;
+
+    // ProfileSegment.key()
+    @Id
+    @Column(name = "segment_key", length = 128)
+    private String segmentKey;
+
+    @Column(name = "category", nullable = false, length = 16)
+    private String category;
+
+    @Column(name = "activities_json", nullable = false, columnDefinition = "TEXT")
+    private String activitiesJson;
+
+    @Column(name = "tips", nullable = false, columnDefinition = "TEXT")
+    private String tips;
+
+    @Column(name = "prompt_version", nullable = false, length = 32)
+    private String promptVersion;
+
+    @Column(name = "generated_at", nullable = false)
+    private OffsetDateTime generatedAt;
+
+    public PrecomputedRecommendation() {
+    }
+
+    public PrecomputedRecommendation(int score, String segmentKey, String category, String activitiesJson,
+                                     String tips, String promptVersion, OffsetDateTime generatedAt) {
+        this.score = score;
+        this.segmentKey = segmentKey;
+        this.category = category;
+        this.activitiesJson = activitiesJson;
+        this.tips = tips;
+        this.promptVersion = promptVersion;
+        this.generatedAt = generatedAt;
+    }
+
+    public int getScore() { return score; }
+    public String getSegmentKey() { return segmentKey; }
+    public String getCategory() { return category; }
+    public String getActivitiesJson() { return activitiesJson; }
+    public String getTips() { return tips; }
+    public String getPromptVersion() { return promptVersion; }
+    public OffsetDateTime getGeneratedAt() { return generatedAt; }
+
+    public static class Key implements Serializable {
+        private int score;
+        private String segmentKey;
+
+        public Key() {
+        }
+
+        public Key(int score, String segmentKey) {
+            this.score = score;
+            this.segmentKey = segmentKey;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key k && score == k.score && Objects.equals(segmentKey, k.segmentKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(score, segmentKey);
+        }
+    }
+}
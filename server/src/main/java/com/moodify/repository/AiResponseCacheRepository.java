@@ -0,0 +1,46 @@
+package com.moodify.repository;
+
+import com.moodify.entity.AiResponseCacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+
+public interface AiResponseCacheRepository extends JpaRepository<AiResponseCacheEntry, String> {
+
+    @Modifying
+    @Query("delete from AiResponseCacheEntry e where e.expiresAt < :now")
+    int deleteExpired(@Param("now") OffsetDateTime now);
+
+    /** Plain insert, no read first; returns 0 when a row with this key already exists. */
+    @Modifying
+    @Transactional
+    @Query(value = """
+            insert into ai_response_cache (cache_key, method, model, prompt_version, content, created_at, expires_at)
+            values (:key, :method, :model, :promptVersion, :content, :createdAt, :expiresAt)
+            on conflict do nothing
+            """, nativeQuery = true)
+    int insertIfAbsent(@Param("key") String key,
+                       @Param("method") String method,
+                       @Param("model") String model,
+                       @Param("promptVersion") String promptVersion,
+                       @Param("content") String content,
+                       @Param("createdAt") OffsetDateTime createdAt,
+                       @Param("expiresAt") OffsetDateTime expiresAt);
+
+    /** Overwrites the row for {@code key} only if it has expired but not been purged yet. */
+    @Modifying
+    @Transactional
+    @Query("""
+            update AiResponseCacheEntry e
+               set e.content = :content, e.createdAt = :createdAt, e.expiresAt = :expiresAt
+             where e.cacheKey = :key and e.expiresAt <= :createdAt
+            """)
+    int replaceExpired(@Param("key") String key,
+                       @Param("content") String content,
+                       @Param("createdAt") OffsetDateTime createdAt,
+                       @Param("expiresAt") OffsetDateTime expiresAt);
+}
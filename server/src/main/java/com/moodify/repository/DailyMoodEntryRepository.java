@@ -2,16 +2,113 @@ package com.moodify.repository;
 
 import com.moodify.entity.DailyMoodEntry;
 import com.moodify.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
-public interface DailyMoodEntryRepository extends JpaRepository<DailyMoodEntry, UUID> {
+public interface DailyMoodEntryRepository extends JpaRepository<DailyMoodEntry, UUID>, DailyMoodEntryRepositoryCustom {
     Optional<DailyMoodEntry> findByUserAndDate(User user, LocalDate date);
     List<DailyMoodEntry> findByUserAndDateBetween(User user, LocalDate start, LocalDate end);
     long countByUser(User user);
     Optional<DailyMoodEntry> findTopByUserOrderByDateDesc(User user);
+
+    /**
+     * Per-week count, sum, min, max and 1-5 histogram of submitted moods for weeks
+     * {@code fromWeek..toWeek}, limited to entries dated {@code start..end}. Weeks without a
+     * submitted mood are absent from the result.
+     */
+    @Query("""
+            select new com.moodify.repository.WeekMoodAggregate(
+                e.weekNumber, count(e), coalesce(sum(e.mood), 0), min(e.mood), max(e.mood),
+                sum(case when e.mood = 1 then 1 else 0 end),
+                sum(case when e.mood = 2 then 1 else 0 end),
+                sum(case when e.mood = 3 then 1 else 0 end),
+                sum(case when e.mood = 4 then 1 else 0 end),
+                sum(case when e.mood = 5 then 1 else 0 end))
+            from DailyMoodEntry e
+            where e.user = :user
+              and e.mood is not null
+              and e.weekNumber between :fromWeek and :toWeek
+              and e.date between :start and :end
+            group by e.weekNumber
+            order by e.weekNumber
+            """)
+    List<WeekMoodAggregate> aggregateWeeks(@Param("user") User user,
+                                           @Param("fromWeek") int fromWeek,
+                                           @Param("toWeek") int toWeek,
+                                           @Param("start") LocalDate start,
+                                           @Param("end") LocalDate end);
+
+    @Query("select new com.moodify.repository.DayMood(e.date, e.mood) from DailyMoodEntry e "
+            + "where e.user = :user and e.mood is not null order by e.date")
+    List<DayMood> findSubmittedMoods(@Param("user") User user);
+
+    /**
+     * Entries still waiting for an AI comment, oldest first: a mood and a reason but no comment,
+     * fewer than {@code maxAttempts} tries, no claim newer than {@code leaseCutoff}, and created
+     * before {@code graceCutoff} so generations started at submit time get to finish first.
+     */
+    @Query("""
+            select e.id from DailyMoodEntry e
+            where e.aiComment is null and e.mood is not null
+              and e.reason is not null and trim(e.reason) <> ''
+              and e.aiCommentAttempts < :maxAttempts
+              and (e.aiCommentClaimedAt is null or e.aiCommentClaimedAt < :leaseCutoff)
+              and (e.createdAt is null or e.createdAt < :graceCutoff)
+            order by e.createdAt
+            """)
+    List<UUID> findCommentBacklog(@Param("maxAttempts") int maxAttempts,
+                                  @Param("leaseCutoff") OffsetDateTime leaseCutoff,
+                                  @Param("graceCutoff") OffsetDateTime graceCutoff,
+                                  Pageable page);
+
+    @Query("""
+            select count(e) from DailyMoodEntry e
+            where e.aiComment is null and e.mood is not null
+              and e.reason is not null and trim(e.reason) <> ''
+              and e.aiCommentAttempts < :maxAttempts
+            """)
+    long countCommentBacklog(@Param("maxAttempts") int maxAttempts);
+
+    /**
+     * Claims an entry for comment generation; returns 1 if this caller got it, 0 if it already has
+     * a comment or another node's claim is newer than {@code leaseCutoff}.
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+            update DailyMoodEntry e
+            set e.aiCommentClaimedAt = :now, e.aiCommentAttempts = e.aiCommentAttempts + 1
+            where e.id = :id and e.aiComment is null
+              and (e.aiCommentClaimedAt is null or e.aiCommentClaimedAt < :leaseCutoff)
+            """)
+    int claimForComment(@Param("id") UUID id,
+                        @Param("now") OffsetDateTime now,
+                        @Param("leaseCutoff") OffsetDateTime leaseCutoff);
+
+    @Query("select e from DailyMoodEntry e join fetch e.user where e.id = :id")
+    Optional<DailyMoodEntry> findWithUserById(@Param("id") UUID id);
+
+    /**
+     * Deletes up to {@code limit} empty placeholder rows (no mood, reason or AI comment) and
+     * returns how many were deleted. Called repeatedly so no single transaction holds many locks.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+            delete from daily_mood_entries where id in (
+                select id from daily_mood_entries
+                where mood is null and reason is null and ai_comment is null
+                limit :limit)
+            """, nativeQuery = true)
+    int deleteEmptyPlaceholders(@Param("limit") int limit);
 }
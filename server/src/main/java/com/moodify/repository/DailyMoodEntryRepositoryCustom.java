@@ -0,0 +1,26 @@
+package com.moodify.repository;
+
+import com.moodify.entity.DailyMoodEntry;
+import com.moodify.entity.User;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.Optional;
+
+public interface DailyMoodEntryRepositoryCustom {
+
+    /**
+     * Creates an empty (null-mood) entry for every day in {@code start..end} the user has no row
+     * for yet, leaving existing rows untouched. Week numbers are relative to {@code anchor}; with
+     * a null anchor every day is week 1. Returns the number of rows inserted.
+     */
+    int fillPlaceholders(User user, LocalDate start, LocalDate end, LocalDate anchor);
+
+    /**
+     * Records {@code mood} for {@code date}, creating the row or filling an empty one. Returns
+     * the stored entry, or empty if a mood was already submitted for that date (the row is left
+     * unchanged). A null {@code reason} keeps whatever reason the row has.
+     */
+    Optional<DailyMoodEntry> submitMood(User user, LocalDate date, int weekNumber, Integer mood,
+                                        String reason, OffsetDateTime submittedAt);
+}
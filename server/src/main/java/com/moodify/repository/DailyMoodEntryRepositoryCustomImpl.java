@@ -0,0 +1,139 @@
+package com.moodify.repository;
+
+import com.moodify.entity.DailyMoodEntry;
+import com.moodify.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * On PostgreSQL both operations are a single statement against the (user_id, entry_date) unique
+ * constraint: the placeholder fill is an {@code INSERT ... SELECT} over {@code generate_series}
+ * that skips existing days, and a submission is an upsert that only overwrites an empty row.
+ * Other databases (H2 in dev and tests) read first and then persist, which Hibernate sends as a
+ * single JDBC batch.
+ */
+class DailyMoodEntryRepositoryCustomImpl implements DailyMoodEntryRepositoryCustom {
+
+    private static final String FILL_SQL = """
+            insert into daily_mood_entries (id, user_id, entry_date, mood, created_at, week_number, day_name)
+            select gen_random_uuid(), :userId, g.day, null, null,
+                   case when g.day < :anchor then 1 else (g.day - :anchor) / 7 + 1 end,
+                   to_char(g.day, 'FMDAY')
+            from (select cast(s as date) as day
+                  from generate_series(cast(:start as date), cast(:end as date), interval '1 day') as s) g
+            on conflict (user_id, entry_date) do nothing
+            """;
+
+    // The WHERE makes the conflicting row come back only if it had no mood yet, so an empty
+    // result means "already submitted".
+    private static final String SUBMIT_SQL = """
+            insert into daily_mood_entries (id, user_id, entry_date, mood, created_at, week_number, day_name, reason)
+            values (gen_random_uuid(), :userId, :date, :mood, :submittedAt, :weekNumber, :dayName, :reason)
+            on conflict (user_id, entry_date) do update
+                set mood = excluded.mood,
+                    created_at = excluded.created_at,
+                    reason = coalesce(excluded.reason, daily_mood_entries.reason),
+                    week_number = coalesce(daily_mood_entries.week_number, excluded.week_number),
+                    day_name = coalesce(daily_mood_entries.day_name, excluded.day_name)
+                where daily_mood_entries.mood is null
+            returning *
+            """;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private volatile Boolean postgres;
+
+    @Override
+    public int fillPlaceholders(User user, LocalDate start, LocalDate end, LocalDate anchor) {
+        if (end.isBefore(start)) return 0;
+        // Pending inserts must reach the database first, or they would collide with the fill.
+        em.flush();
+        if (isPostgres()) {
+            return em.createNativeQuery(FILL_SQL)
+                    .setParameter("userId", user.getId())
+                    .setParameter("start", start)
+                    .setParameter("end", end)
+                    // Without an anchor every day counts as week 1
+                    .setParameter("anchor", anchor != null ? anchor : end.plusDays(1))
+                    .executeUpdate();
+        }
+        Set<LocalDate> existing = new HashSet<>(em.createQuery(
+                        "select e.date from DailyMoodEntry e where e.user = :user and e.date between :start and :end",
+                        LocalDate.class)
+                .setParameter("user", user)
+                .setParameter("start", start)
+                .setParameter("end", end)
+                .getResultList());
+        int inserted = 0;
+        for (LocalDate d = start; !d.isAfter(end); d = d.plusDays(1)) {
+            if (existing.contains(d)) continue;
+            em.persist(new DailyMoodEntry(user, d, weekNumber(anchor, d)));
+            inserted++;
+        }
+        return inserted;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Optional<DailyMoodEntry> submitMood(User user, LocalDate date, int weekNumber, Integer mood,
+                                               String reason, OffsetDateTime submittedAt) {
+        if (isPostgres()) {
+            em.flush();
+            List<DailyMoodEntry> rows = em.createNativeQuery(SUBMIT_SQL, DailyMoodEntry.class)
+                    .setParameter("userId", user.getId())
+                    .setParameter("date", date)
+                    .setParameter("mood", mood)
+                    .setParameter("submittedAt", submittedAt)
+                    .setParameter("weekNumber", weekNumber)
+                    .setParameter("dayName", date.getDayOfWeek().toString())
+                    .setParameter("reason", reason)
+                    .getResultList();
+            return rows.stream().findFirst();
+        }
+        DailyMoodEntry entry = em.createQuery(
+                        "select e from DailyMoodEntry e where e.user = :user and e.date = :date", DailyMoodEntry.class)
+                .setParameter("user", user)
+                .setParameter("date", date)
+                .getResultStream()
+                .findFirst()
+                .orElse(null);
+        if (entry != null && entry.getMood() != null) return Optional.empty();
+        boolean created = entry == null;
+        if (created) entry = new DailyMoodEntry(user, date, weekNumber);
+        entry.setMood(mood);
+        entry.setCreatedAt(submittedAt);
+        if (reason != null) entry.setReason(reason);
+        if (entry.getWeekNumber() == null) entry.setWeekNumber(weekNumber);
+        if (entry.getDayName() == null) entry.setDayName(date.getDayOfWeek().toString());
+        // Persist the finished entity: the insert takes its state at persist time, so setting
+        // fields afterwards would cost a second UPDATE.
+        if (created) em.persist(entry);
+        return Optional.of(entry);
+    }
+
+    private static int weekNumber(LocalDate anchor, LocalDate date) {
+        if (anchor == null) return 1;
+        long days = ChronoUnit.DAYS.between(anchor, date);
+        return days < 0 ? 1 : (int) (days / 7) + 1;
+    }
+
+    // Checks the actual database, not the configured dialect: the dev profile runs H2 with the PostgreSQL dialect.
+    private boolean isPostgres() {
+        Boolean pg = postgres;
+        if (pg == null) {
+            pg = em.unwrap(Session.class).doReturningWork(c -> "PostgreSQL".equals(c.getMetaData().getDatabaseProductName()));
+            postgres = pg;
+        }
+        return pg;
+    }
+}
@@ -0,0 +1,6 @@
+package com.moodify.repository;
+
+import java.time.LocalDate;
+
+/** A submitted mood and its date, without the rest of the entry. */
+public record DayMood(LocalDate date, Integer mood) {}
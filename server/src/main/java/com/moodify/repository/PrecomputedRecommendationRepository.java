@@ -0,0 +1,10 @@
+package com.moodify.repository;
+
+import com.moodify.entity.PrecomputedRecommendation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PrecomputedRecommendationRepository
+        extends JpaRepository<PrecomputedRecommendation, PrecomputedRecommendation.Key> {
+}
@@ -0,0 +1,18 @@
+package com.moodify.repository;
+
+/**
+ * Mood statistics for one relative week, computed in the database. {@code min}/{@code max}
+ * are null when the week has no submitted mood; {@code score1..score5} count each mood value.
+ */
+public record WeekMoodAggregate(Integer weekNumber, long count, long sum, Integer min, Integer max,
+                                long score1, long score2, long score3, long score4, long score5) {
+
+    public double average() {
+        return count == 0 ? 0.0 : (double) sum / count;
+    }
+
+    /** Index {@code i} holds the count for mood value {@code i + 1}. */
+    public long[] histogram() {
+        return new long[]{score1, score2, score3, score4, score5};
+    }
+}
@@ -0,0 +1,252 @@
+package com.moodify.service;
+
+import com.moodify.ai.AiRequestScheduler;
+import com.moodify.ai.OpenAIClient;
+import com.moodify.entity.DailyMoodEntry;
+import com.moodify.repository.DailyMoodEntryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Fills {@link DailyMoodEntry#getAiComment()} in the background so mood submission
+ * only waits on the database, not on the LLM. Bulk imports don't start generations directly:
+ * the backlog is the table itself (entries with a reason and no comment), drained a few at a
+ * time at background priority. Each entry is claimed with a lease before generating, so nodes
+ * don't duplicate work and nothing is lost on restart; the same drain retries entries whose
+ * comment failed at submit time.
+ */
+@Service
+public class AiCommentService implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(AiCommentService.class);
+
+    public static final String STATUS_PENDING = "pending";
+    public static final String STATUS_STREAM = "stream";
+    public static final String STATUS_READY = "ready";
+    public static final String STATUS_NONE = "none";
+    public static final String STATUS_QUEUED = "queued";
+
+    /** One comment generation for an entry; {@code started} is claimed by whoever runs it. */
+    private static final class Generation {
+        final CompletableFuture<Optional<String>> done = new CompletableFuture<>();
+        final AtomicBoolean started = new AtomicBoolean();
+    }
+
+    private final OpenAIClient openAIClient;
+    private final DailyMoodService dailyMoodService;
+    private final DailyMoodEntryRepository repo;
+    private final ProfileContextService profileContextService;
+    // One generation per entry at a time, whether started by submit or by a stream subscriber
+    private final Map<UUID, Generation> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService writer;
+    private final long streamTakeoverMillis;
+    private final int drainConcurrency;
+    private final int maxAttempts;
+    private final Duration lease;
+    private final Duration grace;
+    private final AtomicInteger backlogInFlight = new AtomicInteger();
+
+    public AiCommentService(OpenAIClient openAIClient, DailyMoodService dailyMoodService,
+                            DailyMoodEntryRepository repo, ProfileContextService profileContextService,
+                            @Value("${ai.comment.backlog.concurrency:4}") int drainConcurrency,
+                            @Value("${ai.comment.backlog.maxAttempts:3}") int maxAttempts,
+                            @Value("${ai.comment.backlog.leaseSeconds:600}") long leaseSeconds,
+                            @Value("${ai.comment.backlog.graceSeconds:30}") long graceSeconds,
+                            @Value("${ai.comment.streamTakeoverMillis:5000}") long streamTakeoverMillis) {
+        this.openAIClient = openAIClient;
+        this.dailyMoodService = dailyMoodService;
+        this.repo = repo;
+        this.profileContextService = profileContextService;
+        this.drainConcurrency = Math.max(1, drainConcurrency);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.lease = Duration.ofSeconds(Math.max(1, leaseSeconds));
+        this.grace = Duration.ofSeconds(Math.max(0, graceSeconds));
+        this.streamTakeoverMillis = Math.max(0, streamTakeoverMillis);
+        AtomicInteger seq = new AtomicInteger();
+        this.writer = Executors.newScheduledThreadPool(2, r -> {
+            Thread t = new Thread(r, "ai-comment-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Starts AI comment generation for a freshly saved entry and returns the status to report
+     * to the client right away.
+     */
+    public String enrichAsync(DailyMoodEntry saved, int mood, String reason, String profile) {
+        if (saved == null || saved.getId() == null || reason == null || reason.isBlank()) {
+            return STATUS_NONE;
+        }
+        track(saved, () -> openAIClient.commentOnReasonAsync(mood, reason, profile));
+        return STATUS_PENDING;
+    }
+
+    /**
+     * For a client that will stream the comment: reserves the generation so the stream endpoint
+     * can run it token by token, and starts it server-side after {@code ai.comment.streamTakeoverMillis}
+     * if no stream has claimed it by then (tab closed, navigation, network drop). Either way the
+     * comment is generated once and persisted. Returns the status to report to the client.
+     */
+    public String enrichForStream(DailyMoodEntry saved, int mood, String reason, String profile) {
+        if (saved == null || saved.getId() == null || reason == null || reason.isBlank()) {
+            return STATUS_NONE;
+        }
+        Generation generation = new Generation();
+        if (pending.putIfAbsent(saved.getId(), generation) == null) {
+            writer.schedule(() -> run(saved, generation, () -> openAIClient.commentOnReasonAsync(mood, reason, profile)),
+                    streamTakeoverMillis, TimeUnit.MILLISECONDS);
+        }
+        return STATUS_STREAM;
+    }
+
+    /**
+     * Status for an entry saved (and committed) by a bulk import: {@link #STATUS_QUEUED} when it
+     * has a reason to comment on, which puts it in the backlog, else {@link #STATUS_NONE}.
+     */
+    public String enqueue(DailyMoodEntry saved) {
+        return inBacklog(saved) ? STATUS_QUEUED : STATUS_NONE;
+    }
+
+    /**
+     * Claims and starts backlog entries, keeping at most {@code ai.comment.backlog.concurrency}
+     * running on this node. Does nothing while the AI is unavailable, so attempts aren't used up.
+     */
+    @Scheduled(fixedDelayString = "${ai.comment.backlog.drainIntervalMillis:2000}")
+    public void drainBacklog() {
+        int free = drainConcurrency - backlogInFlight.get();
+        if (free <= 0 || !openAIClient.isAvailable()) return;
+        try {
+            OffsetDateTime now = OffsetDateTime.now();
+            OffsetDateTime leaseCutoff = now.minus(lease);
+            List<UUID> candidates = repo.findCommentBacklog(maxAttempts, leaseCutoff, now.minus(grace),
+                    PageRequest.of(0, free + pending.size()));
+            for (UUID id : candidates) {
+                if (backlogInFlight.get() >= drainConcurrency) return;
+                // Running here already, or claimed by another node since the select
+                if (pending.containsKey(id) || repo.claimForComment(id, now, leaseCutoff) == 0) continue;
+                DailyMoodEntry entry = repo.findWithUserById(id).orElse(null);
+                if (entry == null) continue;
+                String profile = profileContextService.contextFor(entry.getUser());
+                backlogInFlight.incrementAndGet();
+                track(entry, () -> openAIClient.commentOnReasonAsync(entry.getMood(), entry.getReason(), profile,
+                        AiRequestScheduler.Priority.BACKGROUND))
+                        .whenComplete((c, e) -> backlogInFlight.decrementAndGet());
+            }
+        } catch (Exception e) {
+            log.warn("AI comment backlog drain failed: {}", e.getMessage());
+        }
+    }
+
+    public Map<String, Object> backlogStats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        try {
+            out.put("queued", repo.countCommentBacklog(maxAttempts));
+        } catch (Exception e) {
+            out.put("queued", null);
+        }
+        out.put("inFlight", backlogInFlight.get());
+        return out;
+    }
+
+    /**
+     * Streams the comment for {@code entry} token by token, taking over the generation reserved by
+     * {@link #enrichForStream} if it hasn't started yet. If a generation for the entry is already
+     * running (e.g. started by submit) its final text is delivered as one token instead of paying
+     * for a second completion. The future completes with the persisted text.
+     */
+    public CompletableFuture<Optional<String>> streamComment(DailyMoodEntry entry, String profile, Consumer<String> onToken) {
+        if (entry.getAiComment() != null && !entry.getAiComment().isBlank()) {
+            onToken.accept(entry.getAiComment());
+            return CompletableFuture.completedFuture(Optional.of(entry.getAiComment()));
+        }
+        if (entry.getMood() == null || entry.getReason() == null || entry.getReason().isBlank()) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        Generation reserved = pending.get(entry.getId());
+        if (reserved != null) {
+            if (run(entry, reserved, () -> openAIClient.streamCommentOnReason(entry.getMood(), entry.getReason(), profile, onToken))) {
+                return reserved.done;
+            }
+            return reserved.done.thenApply(c -> {
+                c.ifPresent(onToken);
+                return c;
+            });
+        }
+        return track(entry, () -> openAIClient.streamCommentOnReason(entry.getMood(), entry.getReason(), profile, onToken));
+    }
+
+    public String statusOf(DailyMoodEntry entry) {
+        if (entry.getAiComment() != null && !entry.getAiComment().isBlank()) return STATUS_READY;
+        if (entry.getId() != null && pending.containsKey(entry.getId())) return STATUS_PENDING;
+        return inBacklog(entry) ? STATUS_QUEUED : STATUS_NONE;
+    }
+
+    @Override
+    public void destroy() {
+        writer.shutdown();
+    }
+
+    private boolean inBacklog(DailyMoodEntry entry) {
+        return entry != null && entry.getId() != null && entry.getMood() != null
+                && entry.getAiComment() == null
+                && entry.getReason() != null && !entry.getReason().isBlank()
+                && entry.getAiCommentAttempts() < maxAttempts;
+    }
+
+    private CompletableFuture<Optional<String>> track(DailyMoodEntry entry,
+                                                      Supplier<CompletableFuture<Optional<String>>> generation) {
+        Generation created = new Generation();
+        Generation existing = pending.putIfAbsent(entry.getId(), created);
+        if (existing != null) return existing.done;
+        run(entry, created, generation);
+        return created.done;
+    }
+
+    /**
+     * Runs {@code generation} for {@code reserved} unless someone already did; returns whether this
+     * call started it. The comment is persisted before {@code done} completes.
+     */
+    private boolean run(DailyMoodEntry entry, Generation reserved,
+                        Supplier<CompletableFuture<Optional<String>>> generation) {
+        if (!reserved.started.compareAndSet(false, true)) return false;
+        UUID entryId = entry.getId();
+        CompletableFuture<Optional<String>> call;
+        try {
+            call = generation.get();
+        } catch (RuntimeException e) {
+            call = CompletableFuture.completedFuture(Optional.empty());
+        }
+        call.thenApplyAsync(comment -> {
+                    comment.ifPresent(c -> dailyMoodService.addAiComment(entryId, c));
+                    return comment;
+                }, writer)
+                .whenComplete((comment, error) -> {
+                    pending.remove(entryId, reserved);
+                    reserved.done.complete(error == null ? comment : Optional.empty());
+                });
+        return true;
+    }
+}
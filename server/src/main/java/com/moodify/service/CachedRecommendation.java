@@ -0,0 +1,72 @@
+package com.moodify.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.moodify.dto.RecommendationResponse;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cache entry for a recommendation. Both the fresh ({@code cached=false}) and the hit
+ * ({@code cached=true}) views are built once, so serving a hit allocates nothing. Entries that
+ * keep getting hit also keep their serialized JSON, which the controller writes as-is.
+ */
+public final class CachedRecommendation {
+
+    private final View fresh;
+    private final View hit;
+    private final AtomicInteger hits = new AtomicInteger();
+    private volatile byte[] hitJson;
+
+    public CachedRecommendation(RecommendationResponse response) {
+        this.fresh = new View(response.withCached(false), false);
+        this.hit = new View(response.withCached(true), true);
+    }
+
+    public RecommendationResponse response() {
+        return fresh.response;
+    }
+
+    /** True for the canned answer served when the AI call failed. */
+    public boolean isFallback() {
+        return RecommendationService.PROMPT_VERSION_FB.equals(fresh.response.getPromptVersion());
+    }
+
+    /** View for the request that generated the entry. */
+    public View fresh() {
+        return fresh;
+    }
+
+    /**
+     * View for a cache hit. On the {@code hotThreshold}-th hit the JSON form is serialized once;
+     * later hits return it through {@link View#json()}. A threshold of 0 disables the JSON form.
+     */
+    public View hit(ObjectMapper mapper, int hotThreshold) {
+        if (hitJson == null && hotThreshold > 0 && hits.incrementAndGet() >= hotThreshold) {
+            try {
+                hitJson = mapper.writeValueAsBytes(hit.response);
+            } catch (Exception ignored) {
+                // Stay on the object path
+            }
+        }
+        return hit;
+    }
+
+    public final class View {
+        private final RecommendationResponse response;
+        private final boolean cached;
+
+        private View(RecommendationResponse response, boolean cached) {
+            this.response = response;
+            this.cached = cached;
+        }
+
+        public RecommendationResponse response() {
+            return response;
+        }
+
+        /** Pre-serialized body for hot hit entries, otherwise null. */
+        public byte[] json() {
+            return cached ? hitJson : null;
+        }
+    }
+}
@@ -3,16 +3,33 @@ package com.moodify.service;
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.IntStream;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
 
+import com.moodify.cache.InvalidationBus;
 import com.moodify.entity.DailyMoodEntry;
 import com.moodify.entity.User;
 import com.moodify.repository.DailyMoodEntryRepository;
+import com.moodify.repository.WeekMoodAggregate;
 
 @Service
 public class DailyMoodService {
@@ -20,54 +37,46 @@ public class DailyMoodService {
     @Autowired
     private DailyMoodEntryRepository repo;
 
-    @Transactional
-    public void initializeWeekIfFirstLogin(User user) {
-        ensureUpcoming7Days(user);
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${mood.submit.lockTimeoutMillis:2000}")
+    private long submitLockTimeoutMillis;
+
+    @Value("${mood.submit.maxAttempts:3}")
+    private int submitMaxAttempts;
+
+    @Value("${mood.bulk.maxEntries:500}")
+    private int bulkMaxEntries;
+
+    private final StripedLocks submitLocks = new StripedLocks(256);
+
+    // "materialized": empty days are stored as null-mood rows; "virtual": only submissions are
+    // stored and week/history reads fill the gaps in memory.
+    @Value("${mood.placeholders.mode:materialized}")
+    private String placeholderMode;
+
+    public boolean virtualEmptyDays() {
+        return "virtual".equalsIgnoreCase(placeholderMode);
     }
 
-    @Transactional
     public DailyMoodEntry submitTodayMood(User user, Integer moodValue) {
         return submitTodayMood(user, moodValue, null);
     }
 
-    @Transactional
     public DailyMoodEntry submitTodayMood(User user, Integer moodValue, String reason) {
         LocalDate today = LocalDate.now();
-        Optional<DailyMoodEntry> opt = repo.findByUserAndDate(user, today);
-        DailyMoodEntry entry;
-        if (opt.isPresent()) {
-            entry = opt.get();
-            if (entry.getMood() != null) {
-                throw new IllegalStateException("Mood already submitted for today");
-            }
-            entry.setMood(moodValue);
-            entry.setCreatedAt(OffsetDateTime.now());
-            if (reason != null && !reason.isBlank()) entry.setReason(reason);
-            if (entry.getWeekNumber() == null) {
-                entry.setWeekNumber(computeRelativeWeekNumber(user, today));
-            }
-            if (entry.getDayName() == null) {
-                entry.setDayName(today.getDayOfWeek().toString());
-            }
-            ensureUpcoming7Days(user);
-            return repo.save(entry);
-        } else {
-            entry = new DailyMoodEntry(user, today, moodValue, OffsetDateTime.now());
-            entry.setWeekNumber(computeRelativeWeekNumber(user, today));
-            entry.setDayName(today.getDayOfWeek().toString());
-            if (reason != null && !reason.isBlank()) entry.setReason(reason);
-            DailyMoodEntry saved = repo.save(entry);
-            ensureUpcoming7Days(user);
-            return saved;
-        }
+        return lockedSubmit(user, () -> submit(user, today, moodValue, reason)
+                .orElseThrow(() -> new IllegalStateException("Mood already submitted for today")));
     }
 
-    @Transactional
     public DailyMoodEntry submitPastMood(User user, LocalDate targetDate, Integer moodValue) {
         return submitPastMood(user, targetDate, moodValue, null);
     }
 
-    @Transactional
     public DailyMoodEntry submitPastMood(User user, LocalDate targetDate, Integer moodValue, String reason) {
         LocalDate today = LocalDate.now();
         if (!targetDate.isBefore(today)) {
@@ -82,52 +91,124 @@ public class DailyMoodService {
         if (anchor != null && targetDate.isBefore(anchor)) {
             throw new IllegalArgumentException("Date is before user's tracking start");
         }
-        Optional<DailyMoodEntry> opt = repo.findByUserAndDate(user, targetDate);
-        DailyMoodEntry entry;
-        if (opt.isPresent()) {
-            entry = opt.get();
-            if (entry.getMood() != null) {
-                throw new IllegalStateException("Mood already submitted for this date");
+        return lockedSubmit(user, () -> submit(user, targetDate, moodValue, reason)
+                .orElseThrow(() -> new IllegalStateException("Mood already submitted for this date")));
+    }
+
+    /** One dated mood of a bulk import. */
+    public record PastMood(LocalDate date, Integer mood, String reason) {}
+
+    /**
+     * Backfills many past days at once. The whole batch is checked first: every date must be
+     * in the past, on or after the tracking anchor, unique within the batch and not yet
+     * submitted, and every mood within 1..5. If anything fails, nothing is written and the
+     * exception lists every problem. Otherwise all rows are written in one transaction: one read
+     * of the date range, then batched inserts and placeholder updates.
+     */
+    public List<DailyMoodEntry> submitPastMoods(User user, List<PastMood> moods) {
+        if (moods == null || moods.isEmpty()) {
+            throw new IllegalArgumentException("At least one entry is required");
+        }
+        if (moods.size() > bulkMaxEntries) {
+            throw new IllegalArgumentException("At most " + bulkMaxEntries + " entries per request");
+        }
+        LocalDate today = LocalDate.now();
+        LocalDate anchor = relativeWeekAnchor(user);
+        List<String> errors = new ArrayList<>();
+        Set<LocalDate> seen = new HashSet<>();
+        LocalDate min = null;
+        LocalDate max = null;
+        for (int i = 0; i < moods.size(); i++) {
+            PastMood m = moods.get(i);
+            if (m == null || m.date() == null || m.mood() == null) {
+                errors.add("#" + i + ": date and mood are required");
+                continue;
             }
-            entry.setMood(moodValue);
-            entry.setCreatedAt(OffsetDateTime.now());
-            if (reason != null && !reason.isBlank()) entry.setReason(reason);
-            if (entry.getWeekNumber() == null) {
-                entry.setWeekNumber(computeRelativeWeekNumber(user, targetDate));
+            if (m.mood() < 1 || m.mood() > 5) errors.add(m.date() + ": mood must be between 1 and 5");
+            if (!m.date().isBefore(today)) errors.add(m.date() + ": Date must be in the past (before today)");
+            if (anchor != null && m.date().isBefore(anchor)) errors.add(m.date() + ": Date is before user's tracking start");
+            if (!seen.add(m.date())) errors.add(m.date() + ": duplicate date");
+            if (min == null || m.date().isBefore(min)) min = m.date();
+            if (max == null || m.date().isAfter(max)) max = m.date();
+        }
+        if (!errors.isEmpty()) throw new IllegalArgumentException(String.join("; ", errors));
+
+        LocalDate from = min;
+        LocalDate to = max;
+        return lockedSubmit(user, () -> {
+            Map<LocalDate, DailyMoodEntry> existing = new HashMap<>();
+            for (DailyMoodEntry e : repo.findByUserAndDateBetween(user, from, to)) existing.put(e.getDate(), e);
+            List<String> taken = moods.stream()
+                    .map(PastMood::date)
+                    .filter(d -> existing.containsKey(d) && existing.get(d).getMood() != null)
+                    .sorted()
+                    .map(LocalDate::toString)
+                    .toList();
+            if (!taken.isEmpty()) {
+                throw new IllegalStateException("Mood already submitted for " + String.join(", ", taken));
             }
-            if (entry.getDayName() == null) {
-                entry.setDayName(targetDate.getDayOfWeek().toString());
+            OffsetDateTime now = OffsetDateTime.now();
+            List<DailyMoodEntry> rows = new ArrayList<>(moods.size());
+            for (PastMood m : moods) {
+                DailyMoodEntry entry = existing.get(m.date());
+                if (entry == null) entry = new DailyMoodEntry(user, m.date(), computeRelativeWeekNumber(user, m.date()));
+                entry.setMood(m.mood());
+                entry.setCreatedAt(now);
+                if (m.reason() != null && !m.reason().isBlank()) entry.setReason(m.reason());
+                if (entry.getWeekNumber() == null) entry.setWeekNumber(computeRelativeWeekNumber(user, m.date()));
+                if (entry.getDayName() == null) entry.setDayName(m.date().getDayOfWeek().toString());
+                rows.add(entry);
             }
-        } else {
-            int weekNum = computeRelativeWeekNumber(user, targetDate);
-            entry = new DailyMoodEntry(user, targetDate, weekNum);
-            entry.setMood(moodValue);
-            entry.setCreatedAt(OffsetDateTime.now());
-            if (reason != null && !reason.isBlank()) entry.setReason(reason);
-        }
-        return repo.save(entry);
+            List<DailyMoodEntry> saved = repo.saveAll(rows);
+            invalidationBus.publish(InvalidationBus.moodKey(user.getId()));
+            return saved;
+        });
     }
 
-    @Transactional
-    protected void ensureUpcoming7Days(User user) {
-        LocalDate today = LocalDate.now();
-        LocalDate end = today.plusDays(6);
-        // fetch existing entries in the window
-        var existing = repo.findByUserAndDateBetween(user, today, end);
-        var existingDates = existing.stream().map(DailyMoodEntry::getDate).toList();
-        // Fill missing dates for window [today..end] using RELATIVE week logic starting from user's first login (or createdAt).
-        IntStream.rangeClosed(0, 6).forEach(i -> {
-            LocalDate d = today.plusDays(i);
-            if (!existingDates.contains(d)) {
-                int weekNum = computeRelativeWeekNumber(user, d);
-                DailyMoodEntry me = new DailyMoodEntry(user, d, weekNum);
-                repo.save(me);
+    /**
+     * Runs a submission in its own transaction while holding the user's lock stripe, so
+     * concurrent submits for one user (double taps, client retries) run one after another and
+     * the later ones see the first one's committed row. The lock is released only after commit.
+     * A unique-key violation can still come from another node; the next attempt then finds that
+     * row and gets the normal "already submitted" answer.
+     */
+    private <T> T lockedSubmit(User user, Supplier<T> work) {
+        ReentrantLock lock = submitLocks.forKey(user.getId());
+        try {
+            if (!lock.tryLock(submitLockTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Another mood submission is in progress");
             }
-        });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted");
+        }
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    return transactionTemplate.execute(status -> work.get());
+                } catch (DataIntegrityViolationException e) {
+                    if (attempt >= submitMaxAttempts) {
+                        throw new ResponseStatusException(HttpStatus.CONFLICT, "Mood submission conflicted, try again", e);
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
     }
 
-    public java.util.List<DailyMoodEntry> getUpcomingWeek(User user) {
-        return getCurrentWeek(user);
+    /**
+     * One upsert for the day: creates the row or fills its placeholder. Empty when the day
+     * already has a mood. Placeholders for the coming days are not created here.
+     */
+    private Optional<DailyMoodEntry> submit(User user, LocalDate date, Integer moodValue, String reason) {
+        String r = reason != null && !reason.isBlank() ? reason : null;
+        Optional<DailyMoodEntry> saved = repo.submitMood(user, date, computeRelativeWeekNumber(user, date),
+                moodValue, r, OffsetDateTime.now());
+        if (saved.isPresent()) {
+            invalidationBus.publish(InvalidationBus.moodKey(user.getId()));
+        }
+        return saved;
     }
 
     @Transactional
@@ -138,23 +219,18 @@ public class DailyMoodService {
         LocalDate end = start.plusDays(6);
         LocalDate today = LocalDate.now();
 
-        var existing = repo.findByUserAndDateBetween(user, start, end);
-        var existingDates = existing.stream().map(DailyMoodEntry::getDate).toList();
-
-        IntStream.rangeClosed(0, 6).forEach(i -> {
-            LocalDate d = start.plusDays(i);
-            if (d.isAfter(today)) return; 
-            if (!existingDates.contains(d)) {
-                DailyMoodEntry me = new DailyMoodEntry(user, d, sanitizedWeekNumber);
-                repo.save(me);
-            }
-        });
+        // Days after today are not filled in
+        LocalDate lastDay = end.isAfter(today) ? today : end;
+        if (!virtualEmptyDays()) {
+            repo.fillPlaceholders(user, start, lastDay, anchor);
+        }
 
         var weekEntries = repo.findByUserAndDateBetween(user, start, end);
         weekEntries.forEach(e -> {
             if (e.getWeekNumber() == null) e.setWeekNumber(computeRelativeWeekNumber(user, e.getDate()));
             if (e.getDayName() == null) e.setDayName(e.getDate().getDayOfWeek().toString());
         });
+        if (virtualEmptyDays()) return withEmptyDays(user, weekEntries, start, lastDay);
         return weekEntries.stream()
                 .sorted(java.util.Comparator.comparing(DailyMoodEntry::getDate))
                 .toList();
@@ -162,22 +238,47 @@ public class DailyMoodService {
 
     @Transactional(readOnly = true)
     public double computeAverageMoodForWeek(User user, int weekNumber) {
-        var entries = getHistoryFromFirstToLastLogin(user);
-        var stats = entries.stream()
-                .filter(e -> e.getWeekNumber() != null && e.getWeekNumber() == weekNumber)
-                .filter(e -> e.getMood() != null)
-                .mapToInt(DailyMoodEntry::getMood)
-                .summaryStatistics();
-        if (stats.getCount() == 0) {
+        var weeks = aggregateWeeks(user, weekNumber, weekNumber);
+        if (weeks.isEmpty() || weeks.get(0).count() == 0) {
             throw new IllegalStateException("No mood entries for the given week");
         }
-        double avg = stats.getAverage();
+        double avg = weeks.get(0).average();
         if (avg < 0) avg = 0;
         if (avg > 5) avg = 5;
         return avg;
     }
+
+    /**
+     * Database-side mood statistics per relative week, over the same first-to-last-login window
+     * as {@link #getHistoryFromFirstToLastLogin(User)}. Weeks without a submitted mood are omitted.
+     */
+    @Transactional(readOnly = true)
+    public List<WeekMoodAggregate> aggregateWeeks(User user, int fromWeek, int toWeek) {
+        LocalDate[] window = loginWindow(user);
+        return repo.aggregateWeeks(user, fromWeek, toWeek, window[0], window[1]);
+    }
+
     @Transactional(readOnly = true)
     public java.util.List<DailyMoodEntry> getHistoryFromFirstToLastLogin(User user) {
+        LocalDate[] window = loginWindow(user);
+        var entries = repo.findByUserAndDateBetween(user, window[0], window[1]);
+        return virtualEmptyDays() ? withEmptyDays(user, entries, window[0], window[1]) : entries;
+    }
+
+    /**
+     * {@code existing} plus an unsaved, null-mood entry for every day of {@code start..end}
+     * without a row, sorted by date.
+     */
+    private List<DailyMoodEntry> withEmptyDays(User user, List<DailyMoodEntry> existing, LocalDate start, LocalDate end) {
+        TreeMap<LocalDate, DailyMoodEntry> byDate = new TreeMap<>();
+        for (DailyMoodEntry e : existing) byDate.put(e.getDate(), e);
+        for (LocalDate d = start; !d.isAfter(end); d = d.plusDays(1)) {
+            byDate.computeIfAbsent(d, day -> new DailyMoodEntry(user, day, computeRelativeWeekNumber(user, day)));
+        }
+        return new ArrayList<>(byDate.values());
+    }
+
+    private LocalDate[] loginWindow(User user) {
         LocalDate start;
         if (user.getFirstLogin() != null) {
             start = user.getFirstLogin().toLocalDate();
@@ -195,16 +296,18 @@ public class DailyMoodService {
         if (end.isBefore(start)) {
             end = start;
         }
-        return repo.findByUserAndDateBetween(user, start, end);
+        return new LocalDate[]{start, end};
     }
 
-    private int computeRelativeWeekNumber(User user, LocalDate date) {
-        LocalDate startDate = null;
-        if (user.getFirstLogin() != null) {
-            startDate = user.getFirstLogin().toLocalDate();
-        } else if (user.getCreatedAt() != null) {
-            startDate = user.getCreatedAt().toLocalDate();
-        }
+    /** Start of week 1 for {@link #computeRelativeWeekNumber}; null when the user has no login or creation date. */
+    static LocalDate relativeWeekAnchor(User user) {
+        if (user.getFirstLogin() != null) return user.getFirstLogin().toLocalDate();
+        if (user.getCreatedAt() != null) return user.getCreatedAt().toLocalDate();
+        return null;
+    }
+
+    static int computeRelativeWeekNumber(User user, LocalDate date) {
+        LocalDate startDate = relativeWeekAnchor(user);
         if (startDate == null) {
             startDate = date; 
         }
@@ -215,46 +318,28 @@ public class DailyMoodService {
         return (int) (days / 7) + 1;
     }
 
-    private LocalDate getAnchorDate(User user) {
+    static LocalDate getAnchorDate(User user) {
         if (user.getFirstLogin() != null) return user.getFirstLogin().toLocalDate();
         if (user.getCreatedAt() != null) return user.getCreatedAt().toLocalDate();
         return LocalDate.now();
     }
     
-    @Transactional
-    public DailyMoodEntry addAiComment(DailyMoodEntry entry, String comment) {
-        if (entry == null || comment == null || comment.isBlank()) return entry;
-        entry.setAiComment(comment);
-        return repo.save(entry);
+    @Transactional(readOnly = true)
+    public Optional<DailyMoodEntry> findEntry(User user, LocalDate date) {
+        return repo.findByUserAndDate(user, date);
     }
 
+    /**
+     * Stores a generated comment unless the entry already has one. The row is reloaded here: the
+     * caller's copy is detached and may be older than the row, and merging it would write back
+     * stale columns. Returns whether the comment was stored.
+     */
     @Transactional
-    public java.util.List<DailyMoodEntry> getCurrentWeek(User user) {
-        LocalDate today = LocalDate.now();
-        int currentWeek = computeRelativeWeekNumber(user, today);
-        LocalDate anchor = getAnchorDate(user);
-        LocalDate start = anchor.plusDays((long) (currentWeek - 1) * 7);
-        LocalDate end = start.plusDays(6);
-
-        var existing = repo.findByUserAndDateBetween(user, start, end);
-        var existingDates = existing.stream().map(DailyMoodEntry::getDate).toList();
-
-        IntStream.rangeClosed(0, 6).forEach(i -> {
-            LocalDate d = start.plusDays(i);
-            if (!existingDates.contains(d)) {
-                int weekNum = currentWeek; 
-                DailyMoodEntry me = new DailyMoodEntry(user, d, weekNum);
-                repo.save(me);
-            }
-        });
-
-        var weekEntries = repo.findByUserAndDateBetween(user, start, end);
-        weekEntries.forEach(e -> {
-            if (e.getWeekNumber() == null) e.setWeekNumber(computeRelativeWeekNumber(user, e.getDate()));
-            if (e.getDayName() == null) e.setDayName(e.getDate().getDayOfWeek().toString());
-        });
-        return weekEntries.stream()
-                .sorted(java.util.Comparator.comparing(DailyMoodEntry::getDate))
-                .toList();
+    public boolean addAiComment(UUID entryId, String comment) {
+        if (entryId == null || comment == null || comment.isBlank()) return false;
+        DailyMoodEntry entry = repo.findById(entryId).orElse(null);
+        if (entry == null || entry.getAiComment() != null) return false;
+        entry.setAiComment(comment);
+        return true;
     }
 }
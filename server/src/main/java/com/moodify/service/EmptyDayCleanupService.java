@@ -0,0 +1,96 @@
+package com.moodify.service;
+
+import com.moodify.repository.DailyMoodEntryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Once empty days are virtual, the null-mood placeholder rows written earlier are dead weight.
+ * After startup this deletes them in small batches on a background thread, pausing between
+ * batches so it doesn't compete with request traffic, until none are left.
+ */
+@Service
+public class EmptyDayCleanupService implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(EmptyDayCleanupService.class);
+
+    private final DailyMoodEntryRepository repo;
+    private final DailyMoodService dailyMoodService;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long pauseMillis;
+
+    private final ExecutorService worker;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong deleted = new AtomicLong();
+
+    public EmptyDayCleanupService(DailyMoodEntryRepository repo,
+                                  DailyMoodService dailyMoodService,
+                                  @Value("${mood.placeholders.cleanup.enabled:true}") boolean enabled,
+                                  @Value("${mood.placeholders.cleanup.batchSize:1000}") int batchSize,
+                                  @Value("${mood.placeholders.cleanup.pauseMillis:200}") long pauseMillis) {
+        this.repo = repo;
+        this.dailyMoodService = dailyMoodService;
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.pauseMillis = Math.max(0, pauseMillis);
+        this.worker = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "empty-day-cleanup");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        // In materialized mode the rows would just be written again
+        if (!enabled || !dailyMoodService.virtualEmptyDays()) return;
+        if (!running.compareAndSet(false, true)) return;
+        worker.execute(() -> {
+            try {
+                run();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.warn("Empty placeholder cleanup stopped: {}", e.getMessage());
+            } finally {
+                running.set(false);
+            }
+        });
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("enabled", enabled && dailyMoodService.virtualEmptyDays());
+        out.put("running", running.get());
+        out.put("deleted", deleted.get());
+        return out;
+    }
+
+    @Override
+    public void destroy() {
+        worker.shutdownNow();
+    }
+
+    private void run() throws InterruptedException {
+        int n;
+        do {
+            n = repo.deleteEmptyPlaceholders(batchSize);
+            deleted.addAndGet(n);
+            if (n > 0 && pauseMillis > 0) Thread.sleep(pauseMillis);
+        } while (n == batchSize);
+        if (deleted.get() > 0) log.info("Deleted {} empty mood placeholders", deleted.get());
+    }
+}
@@ -0,0 +1,87 @@
+package com.moodify.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.moodify.cache.InvalidationBus;
+import com.moodify.dto.MoodHistorySummaryResponse;
+import com.moodify.entity.User;
+import com.moodify.repository.DailyMoodEntryRepository;
+import com.moodify.repository.DayMood;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Serves each user's {@link PackedMoodHistory} from memory, so streaks, calendars and averages
+ * never load mood entities. A history is built on first use from one (date, mood) projection of
+ * {@code daily_mood_entries} and kept until the {@code mood:<id>} invalidation that submissions
+ * publish after commit drops it on every node. Neither submits nor reads write anything extra:
+ * a submit stays one statement and the next read rebuilds.
+ */
+@Service
+public class MoodHistoryService {
+
+    private final DailyMoodEntryRepository entryRepository;
+    private final Cache<UUID, PackedMoodHistory> cache;
+    private final boolean enabled;
+    private final int maxSummaryDays;
+
+    public MoodHistoryService(DailyMoodEntryRepository entryRepository,
+                              InvalidationBus invalidationBus,
+                              @Value("${mood.history.enabled:true}") boolean enabled,
+                              @Value("${mood.history.cache.maxUsers:50000}") long maxUsers,
+                              @Value("${mood.history.summary.maxDays:366}") int maxSummaryDays) {
+        this.entryRepository = entryRepository;
+        this.enabled = enabled;
+        this.maxSummaryDays = maxSummaryDays;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterAccess(Duration.ofHours(6))
+                .build();
+        invalidationBus.subscribe(InvalidationBus.MOOD_PREFIX, this::onInvalidation);
+    }
+
+    public PackedMoodHistory historyFor(User user) {
+        if (!enabled) return build(user);
+        return cache.get(user.getId(), id -> build(user));
+    }
+
+    /** Streaks over the whole history plus a calendar and average for the last {@code days} days. */
+    public MoodHistorySummaryResponse summary(User user, int days) {
+        PackedMoodHistory history = historyFor(user);
+        int n = Math.max(1, Math.min(days, maxSummaryDays));
+        LocalDate to = LocalDate.now();
+        LocalDate from = to.minusDays(n - 1L);
+        return new MoodHistorySummaryResponse(
+                history.days() == 0 ? null : history.start(),
+                history.currentStreak(to),
+                history.longestStreak(),
+                from, to,
+                history.filledDays(from, to),
+                history.average(from, to),
+                history.calendar(from, to));
+    }
+
+    private PackedMoodHistory build(User user) {
+        PackedMoodHistory history = PackedMoodHistory.empty(LocalDate.now());
+        for (DayMood m : entryRepository.findSubmittedMoods(user)) {
+            if (m.mood() >= 1 && m.mood() <= 5) history = history.with(m.date(), m.mood());
+        }
+        return history;
+    }
+
+    private void onInvalidation(String key) {
+        String id = key.substring(InvalidationBus.MOOD_PREFIX.length());
+        if (id.isEmpty()) {
+            cache.invalidateAll();
+            return;
+        }
+        try {
+            cache.invalidate(UUID.fromString(id));
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.moodify.service;
+
+import com.moodify.dto.DailyMoodResponse;
+import com.moodify.entity.DailyMoodEntry;
+import com.moodify.entity.User;
+import com.moodify.repository.DailyMoodEntryRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read side of the week views. Never writes: days without a row are answered with an empty
+ * response built in memory, and missing week numbers or day names are derived, not stored.
+ * Everything runs in read-only transactions, so these queries can go to a replica.
+ */
+@Service
+@Transactional(readOnly = true)
+public class MoodQueryService {
+
+    private final DailyMoodEntryRepository repo;
+
+    public MoodQueryService(DailyMoodEntryRepository repo) {
+        this.repo = repo;
+    }
+
+    /** Relative week containing today, from the user's anchor date alone. */
+    public int currentWeekNumber(User user) {
+        return DailyMoodService.computeRelativeWeekNumber(user, LocalDate.now());
+    }
+
+    /**
+     * The seven days of {@code weekNumber}, without empty days after today, or the whole current
+     * week when {@code weekNumber} is null. Same shape as {@link DailyMoodService#getWeek}.
+     */
+    public List<DailyMoodResponse> week(User user, Integer weekNumber) {
+        LocalDate today = LocalDate.now();
+        int week = weekNumber == null ? currentWeekNumber(user) : Math.max(1, weekNumber);
+        LocalDate start = DailyMoodService.getAnchorDate(user).plusDays((long) (week - 1) * 7);
+        LocalDate end = start.plusDays(6);
+        LocalDate lastEmptyDay = weekNumber == null || !end.isAfter(today) ? end : today;
+
+        Map<LocalDate, DailyMoodEntry> byDate = new HashMap<>();
+        for (DailyMoodEntry e : repo.findByUserAndDateBetween(user, start, end)) byDate.put(e.getDate(), e);
+
+        List<DailyMoodResponse> out = new ArrayList<>(7);
+        for (LocalDate d = start; !d.isAfter(end); d = d.plusDays(1)) {
+            DailyMoodEntry e = byDate.get(d);
+            if (e != null) {
+                out.add(toResponse(user, e));
+            } else if (!d.isAfter(lastEmptyDay)) {
+                out.add(new DailyMoodResponse(d, d.getDayOfWeek().toString(),
+                        DailyMoodService.computeRelativeWeekNumber(user, d), null, null, null, null));
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Submitted entries of {@code weekNumber}, ordered by date. Placeholder rows are left out, so
+     * the week is complete exactly when seven entries come back.
+     */
+    public List<DailyMoodEntry> submittedInWeek(User user, int weekNumber) {
+        LocalDate start = DailyMoodService.getAnchorDate(user).plusDays((long) (Math.max(1, weekNumber) - 1) * 7);
+        return repo.findByUserAndDateBetween(user, start, start.plusDays(6)).stream()
+                .filter(e -> e.getMood() != null)
+                .sorted(Comparator.comparing(DailyMoodEntry::getDate))
+                .toList();
+    }
+
+    private static DailyMoodResponse toResponse(User user, DailyMoodEntry e) {
+        Integer weekNumber = e.getWeekNumber() != null
+                ? e.getWeekNumber()
+                : DailyMoodService.computeRelativeWeekNumber(user, e.getDate());
+        String dayName = e.getDayName() != null ? e.getDayName() : e.getDate().getDayOfWeek().toString();
+        return new DailyMoodResponse(e.getDate(), dayName, weekNumber, e.getMood(), e.getCreatedAt(),
+                e.getReason(), e.getAiComment());
+    }
+}
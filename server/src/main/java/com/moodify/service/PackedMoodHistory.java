@@ -0,0 +1,151 @@
+package com.moodify.service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+
+/**
+ * A user's mood per day from {@code start}, packed 3 bits per day: 0 for no entry, 1..5 for the
+ * mood. A year fits in 137 bytes. Instances are immutable; {@link #with} returns a copy.
+ */
+public final class PackedMoodHistory {
+
+    private static final int BITS = 3;
+    private static final int MASK = (1 << BITS) - 1;
+
+    private final LocalDate start;
+    private final int days;
+    private final byte[] data;
+
+    public PackedMoodHistory(LocalDate start, int days, byte[] data) {
+        if (days < 0 || data.length < bytesFor(days)) {
+            throw new IllegalArgumentException("data too short for " + days + " days");
+        }
+        this.start = start;
+        this.days = days;
+        this.data = data;
+    }
+
+    public static PackedMoodHistory empty(LocalDate start) {
+        return new PackedMoodHistory(start, 0, new byte[0]);
+    }
+
+    public LocalDate start() {
+        return start;
+    }
+
+    public int days() {
+        return days;
+    }
+
+    /** Copy of the packed bytes, for storage. */
+    public byte[] toBytes() {
+        return data.clone();
+    }
+
+    /** Mood on {@code date}, 0 if none or outside the history. */
+    public int get(LocalDate date) {
+        long i = ChronoUnit.DAYS.between(start, date);
+        return i < 0 || i >= days ? 0 : read(data, (int) i);
+    }
+
+    /** This history with {@code mood} (1..5) on {@code date}, grown in either direction as needed. */
+    public PackedMoodHistory with(LocalDate date, int mood) {
+        if (mood < 1 || mood > 5) throw new IllegalArgumentException("mood must be between 1 and 5");
+        LocalDate newStart = days == 0 || date.isBefore(start) ? date : start;
+        int shift = (int) ChronoUnit.DAYS.between(newStart, start);
+        int index = (int) ChronoUnit.DAYS.between(newStart, date);
+        int newDays = Math.max(days == 0 ? 0 : days + shift, index + 1);
+        byte[] out;
+        if (shift == 0) {
+            out = Arrays.copyOf(data, bytesFor(newDays));
+        } else {
+            out = new byte[bytesFor(newDays)];
+            for (int i = 0; i < days; i++) write(out, i + shift, read(data, i));
+        }
+        write(out, index, mood);
+        return new PackedMoodHistory(newStart, newDays, out);
+    }
+
+    /**
+     * Consecutive days with a mood ending at {@code today}, or at yesterday while today is still
+     * open.
+     */
+    public int currentStreak(LocalDate today) {
+        LocalDate d = get(today) != 0 ? today : today.minusDays(1);
+        int streak = 0;
+        while (get(d) != 0) {
+            streak++;
+            d = d.minusDays(1);
+        }
+        return streak;
+    }
+
+    public int longestStreak() {
+        int best = 0;
+        int run = 0;
+        for (int i = 0; i < days; i++) {
+            if (read(data, i) != 0) {
+                run++;
+                if (run > best) best = run;
+            } else {
+                run = 0;
+            }
+        }
+        return best;
+    }
+
+    /** Number of days with a mood in {@code from..to}. */
+    public int filledDays(LocalDate from, LocalDate to) {
+        int n = 0;
+        for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+            if (get(d) != 0) n++;
+        }
+        return n;
+    }
+
+    /** Average mood over the days with an entry in {@code from..to}; null if there are none. */
+    public Double average(LocalDate from, LocalDate to) {
+        int sum = 0;
+        int n = 0;
+        for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+            int m = get(d);
+            if (m != 0) {
+                sum += m;
+                n++;
+            }
+        }
+        return n == 0 ? null : (double) sum / n;
+    }
+
+    /** Moods for {@code from..to}, one per day, 0 for empty days. */
+    public int[] calendar(LocalDate from, LocalDate to) {
+        int n = (int) ChronoUnit.DAYS.between(from, to) + 1;
+        int[] out = new int[Math.max(0, n)];
+        for (int i = 0; i < out.length; i++) out[i] = get(from.plusDays(i));
+        return out;
+    }
+
+    static int bytesFor(int days) {
+        return (days * BITS + 7) / 8;
+    }
+
+    private static int read(byte[] data, int day) {
+        int bit = day * BITS;
+        int b = bit >>> 3;
+        int v = data[b] & 0xFF;
+        if (b + 1 < data.length) v |= (data[b + 1] & 0xFF) << 8;
+        return (v >>> (bit & 7)) & MASK;
+    }
+
+    private static void write(byte[] data, int day, int value) {
+        int bit = day * BITS;
+        int b = bit >>> 3;
+        int off = bit & 7;
+        int v = data[b] & 0xFF;
+        if (b + 1 < data.length) v |= (data[b + 1] & 0xFF) << 8;
+        v = (v & ~(MASK << off)) | ((value & MASK) << off);
+        data[b] = (byte) v;
+        if (b + 1 < data.length) data[b + 1] = (byte) (v >>> 8);
+    }
+}
@@ -0,0 +1,139 @@
+package com.moodify.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.moodify.cache.InvalidationBus;
+import com.moodify.entity.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Profile text for AI prompts ("umur:.. | gender:.. | hobi:..") and the user's
+ * {@link ProfileSegment}, memoized per user. A memo is reused while the user's birth date,
+ * gender and hobbies JSON are unchanged and it was built today (age depends on the date), so
+ * the hot path does no JSON parsing. Memos are dropped when {@code user:<id>} is published on the
+ * {@link InvalidationBus}, so profile updates on any node are seen everywhere.
+ */
+@Service
+public class ProfileContextService {
+
+    private static final int MAX_HOBBIES = 6;
+    private static final int MAX_LENGTH = 400;
+
+    private final ObjectMapper objectMapper;
+    private final Cache<UUID, Memo> memos;
+
+    public ProfileContextService(ObjectMapper objectMapper,
+                                 @Value("${profile.context.maxUsers:10000}") long maxUsers,
+                                 InvalidationBus invalidationBus) {
+        this.objectMapper = objectMapper;
+        this.memos = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterAccess(Duration.ofHours(1))
+                .build();
+        invalidationBus.subscribe(InvalidationBus.USER_PREFIX, this::onInvalidation);
+    }
+
+    /** Exact profile text for personal prompts (mood comments, weekly summary). */
+    public String contextFor(User user) {
+        return memoFor(user).context;
+    }
+
+    /** Canonical segment for shared, cacheable prompts (recommendations). */
+    public ProfileSegment segmentFor(User user) {
+        return memoFor(user).segment;
+    }
+
+    public void invalidate(UUID userId) {
+        if (userId != null) memos.invalidate(userId);
+    }
+
+    private void onInvalidation(String key) {
+        String id = key.substring(InvalidationBus.USER_PREFIX.length());
+        if (id.isEmpty()) {
+            memos.invalidateAll();
+            return;
+        }
+        try {
+            invalidate(UUID.fromString(id));
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+
+    private Memo memoFor(User user) {
+        if (user.getId() == null) return build(user, LocalDate.now());
+        LocalDate today = LocalDate.now();
+        Memo memo = memos.getIfPresent(user.getId());
+        if (memo != null && memo.matches(user, today)) return memo;
+        Memo fresh = build(user, today);
+        memos.put(user.getId(), fresh);
+        return fresh;
+    }
+
+    private Memo build(User u, LocalDate today) {
+        StringBuilder sb = new StringBuilder();
+        if (u.getBirthDate() != null) {
+            int age = Period.between(u.getBirthDate(), today).getYears();
+            if (age > 0 && age < 120) {
+                sb.append("umur:").append(age);
+            }
+        }
+        if (u.getGender() != null && !u.getGender().isBlank()) {
+            if (sb.length() > 0) sb.append(" | ");
+            sb.append("gender:").append(u.getGender());
+        }
+        String hj = u.getHobbiesJson();
+        if (hj != null && !hj.isBlank()) {
+            try {
+                List<String> hobbies = objectMapper.readValue(hj, new TypeReference<List<String>>(){});
+                if (hobbies != null && !hobbies.isEmpty()) {
+                    if (sb.length() > 0) sb.append(" | ");
+                    List<String> trimmed = hobbies.size() > MAX_HOBBIES ? hobbies.subList(0, MAX_HOBBIES) : hobbies;
+                    sb.append("hobi:").append(String.join(",", trimmed));
+                }
+            } catch (Exception ignored) {
+                // fallback: include raw string but keep short
+                String raw = hj.trim();
+                if (sb.length() > 0) sb.append(" | ");
+                sb.append("hobi:").append(raw.length() > 120 ? raw.substring(0, 120) : raw);
+            }
+        }
+        String context = sb.length() > MAX_LENGTH ? sb.substring(0, MAX_LENGTH) : sb.toString();
+        return new Memo(u.getBirthDate(), u.getGender(), hj, today, context, ProfileSegment.of(u, objectMapper));
+    }
+
+    private static final class Memo {
+        final LocalDate birthDate;
+        final String gender;
+        final String hobbiesJson;
+        final LocalDate builtOn;
+        final String context;
+        final ProfileSegment segment;
+
+        Memo(LocalDate birthDate, String gender, String hobbiesJson, LocalDate builtOn,
+             String context, ProfileSegment segment) {
+            this.birthDate = birthDate;
+            this.gender = gender;
+            this.hobbiesJson = hobbiesJson;
+            this.builtOn = builtOn;
+            this.context = context;
+            this.segment = segment;
+        }
+
+        boolean matches(User u, LocalDate today) {
+            return builtOn.equals(today)
+                    && Objects.equals(birthDate, u.getBirthDate())
+                    && Objects.equals(gender, u.getGender())
+                    && Objects.equals(hobbiesJson, u.getHobbiesJson());
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.moodify.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.moodify.entity.User;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.TreeSet;
+
+/**
+ * Canonical, user-independent view of a profile for recommendation prompts and cache keys:
+ * an age band instead of the exact age, a normalized gender and a sorted, de-duplicated hobby set.
+ * Users with the same segment share cached recommendations.
+ */
+public final class ProfileSegment {
+
+    public static final ProfileSegment UNKNOWN = new ProfileSegment("unknown", "unknown", List.of());
+
+    private static final int MAX_HOBBIES = 6;
+
+    private final String ageBand;
+    private final String gender;
+    private final List<String> hobbies;
+    private final String key;
+
+    private ProfileSegment(String ageBand, String gender, List<String> hobbies) {
+        this.ageBand = ageBand;
+        this.gender = gender;
+        this.hobbies = hobbies;
+        this.key = "age=" + ageBand + ";gender=" + gender + ";hobbies=" + hobbyHash(hobbies);
+    }
+
+    public static ProfileSegment of(User user, ObjectMapper objectMapper) {
+        if (user == null) return UNKNOWN;
+        return new ProfileSegment(ageBand(user.getBirthDate()), normalizeGender(user.getGender()),
+                normalizeHobbies(user.getHobbiesJson(), objectMapper));
+    }
+
+    /** Compact cache-key form; the hobby set is hashed so keys stay short. */
+    public String key() {
+        return key;
+    }
+
+    /** Prompt form, e.g. {@code umur:25-34 | gender:female | hobi:membaca,olahraga}; empty when nothing is known. */
+    public String promptText() {
+        StringBuilder sb = new StringBuilder();
+        if (!"unknown".equals(ageBand)) sb.append("umur:").append(ageBand);
+        if (!"unknown".equals(gender)) {
+            if (sb.length() > 0) sb.append(" | ");
+            sb.append("gender:").append(gender);
+        }
+        if (!hobbies.isEmpty()) {
+            if (sb.length() > 0) sb.append(" | ");
+            sb.append("hobi:").append(String.join(",", hobbies));
+        }
+        return sb.toString();
+    }
+
+    public String getAgeBand() { return ageBand; }
+    public String getGender() { return gender; }
+    public List<String> getHobbies() { return hobbies; }
+
+    static String ageBand(LocalDate birthDate) {
+        if (birthDate == null) return "unknown";
+        int age = Period.between(birthDate, LocalDate.now()).getYears();
+        if (age <= 0 || age >= 120) return "unknown";
+        if (age < 18) return "<18";
+        if (age < 25) return "18-24";
+        if (age < 35) return "25-34";
+        if (age < 45) return "35-44";
+        if (age < 55) return "45-54";
+        return "55+";
+    }
+
+    static String normalizeGender(String gender) {
+        if (gender == null || gender.isBlank()) return "unknown";
+        return switch (gender.trim().toLowerCase(Locale.ROOT)) {
+            case "male", "m", "pria", "laki-laki", "laki laki" -> "male";
+            case "female", "f", "wanita", "perempuan" -> "female";
+            default -> "other";
+        };
+    }
+
+    static List<String> normalizeHobbies(String hobbiesJson, ObjectMapper objectMapper) {
+        if (hobbiesJson == null || hobbiesJson.isBlank()) return List.of();
+        try {
+            List<String> raw = objectMapper.readValue(hobbiesJson, new TypeReference<List<String>>(){});
+            if (raw == null) return List.of();
+            TreeSet<String> set = new TreeSet<>();
+            for (String h : raw) {
+                if (h == null) continue;
+                String n = h.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+                if (!n.isEmpty()) set.add(n);
+            }
+            return set.stream().limit(MAX_HOBBIES).toList();
+        } catch (Exception e) {
+            return List.of();
+        }
+    }
+
+    private static String hobbyHash(List<String> hobbies) {
+        if (hobbies.isEmpty()) return "-";
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            byte[] digest = md.digest(String.join("\n", hobbies).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof ProfileSegment other && key.equals(other.key);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(key);
+    }
+
+    @Override
+    public String toString() {
+        return key;
+    }
+}
@@ -0,0 +1,240 @@
+package com.moodify.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.moodify.ai.AiRequestScheduler;
+import com.moodify.ai.OpenAIClient;
+import com.moodify.dto.RecommendationResponse;
+import com.moodify.entity.PrecomputedRecommendation;
+import com.moodify.entity.User;
+import com.moodify.repository.PrecomputedRecommendationRepository;
+import com.moodify.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Recommendations materialized ahead of time for every score and the most common profile
+ * segments. Rows are loaded into memory when the application is ready and regenerated on a
+ * schedule with bounded AI concurrency, so requests without free-text context are a lookup.
+ * Only missing rows and rows older than the refresh interval are regenerated, so replicas that
+ * start or refresh shortly after one another reuse each other's work instead of repeating it.
+ */
+@Service
+public class RecommendationPrecomputeService implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(RecommendationPrecomputeService.class);
+
+    private final OpenAIClient openAIClient;
+    private final PrecomputedRecommendationRepository repository;
+    private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int concurrency;
+    private final int topSegments;
+    private final int userSample;
+    private final Duration refreshInterval;
+
+    private final Map<String, CachedRecommendation> table = new ConcurrentHashMap<>();
+    private final ExecutorService worker;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private volatile OffsetDateTime lastRefreshAt;
+    private volatile int lastRefreshGenerated;
+    private volatile int lastRefreshReused;
+
+    public RecommendationPrecomputeService(OpenAIClient openAIClient,
+                                           PrecomputedRecommendationRepository repository,
+                                           UserRepository userRepository,
+                                           ObjectMapper objectMapper,
+                                           @Value("${recommendation.precompute.enabled:true}") boolean enabled,
+                                           @Value("${recommendation.precompute.concurrency:2}") int concurrency,
+                                           @Value("${recommendation.precompute.topSegments:20}") int topSegments,
+                                           @Value("${recommendation.precompute.userSample:5000}") int userSample,
+                                           @Value("${recommendation.precompute.refreshIntervalMillis:21600000}") long refreshIntervalMillis) {
+        this.openAIClient = openAIClient;
+        this.repository = repository;
+        this.userRepository = userRepository;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.concurrency = Math.max(1, concurrency);
+        this.topSegments = Math.max(0, topSegments);
+        this.userSample = Math.max(1, userSample);
+        this.refreshInterval = Duration.ofMillis(Math.max(0, refreshIntervalMillis));
+        this.worker = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "recommendation-precompute");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Precomputed answer for a request without free-text context; null if this segment wasn't materialized. */
+    public CachedRecommendation lookup(int score, ProfileSegment segment) {
+        return table.get(tableKey(score, segment.key()));
+    }
+
+    /** Forgets every precomputed answer on this node; they come back with the next refresh. */
+    public void clear() {
+        table.clear();
+    }
+
+    /** Deletes the stored rows, so a restarting node doesn't load answers that were invalidated. */
+    public void deleteStored() {
+        repository.deleteAllInBatch();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) return;
+        try {
+            load();
+        } catch (Exception e) {
+            log.warn("Could not load precomputed recommendations: {}", e.getMessage());
+        }
+        submitRefresh();
+    }
+
+    @Scheduled(fixedDelayString = "${recommendation.precompute.refreshIntervalMillis:21600000}",
+            initialDelayString = "${recommendation.precompute.refreshIntervalMillis:21600000}")
+    public void scheduledRefresh() {
+        if (enabled) submitRefresh();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("enabled", enabled);
+        out.put("entries", table.size());
+        out.put("refreshing", refreshing.get());
+        out.put("lastRefreshAt", lastRefreshAt == null ? null : lastRefreshAt.toString());
+        out.put("lastRefreshGenerated", lastRefreshGenerated);
+        out.put("lastRefreshReused", lastRefreshReused);
+        return out;
+    }
+
+    @Override
+    public void destroy() {
+        worker.shutdownNow();
+    }
+
+    private void submitRefresh() {
+        if (!refreshing.compareAndSet(false, true)) return;
+        worker.execute(() -> {
+            try {
+                refresh();
+            } catch (Exception e) {
+                log.warn("Recommendation precompute failed: {}", e.getMessage());
+            } finally {
+                refreshing.set(false);
+            }
+        });
+    }
+
+    /** Loads the stored rows into the table; returns when each loaded key was generated. */
+    private Map<String, OffsetDateTime> load() {
+        Map<String, OffsetDateTime> generatedAt = new HashMap<>();
+        for (PrecomputedRecommendation row : repository.findAll()) {
+            if (!RecommendationService.PROMPT_VERSION_AI.equals(row.getPromptVersion())) continue;
+            try {
+                List<String> activities = objectMapper.readValue(row.getActivitiesJson(), new TypeReference<List<String>>(){});
+                String key = tableKey(row.getScore(), row.getSegmentKey());
+                table.put(key, new CachedRecommendation(new RecommendationResponse(
+                        row.getScore(), row.getCategory(), activities, row.getTips(), row.getPromptVersion(), false)));
+                generatedAt.put(key, row.getGeneratedAt());
+            } catch (Exception ignored) {
+            }
+        }
+        log.info("Loaded {} precomputed recommendations", table.size());
+        return generatedAt;
+    }
+
+    private void refresh() throws InterruptedException {
+        // Re-read the stored rows first: another replica may have regenerated them since our last load.
+        Map<String, OffsetDateTime> generatedAt = load();
+        if (!openAIClient.isAvailable()) return;
+        OffsetDateTime staleBefore = OffsetDateTime.now().minus(refreshInterval);
+        List<ProfileSegment> segments = popularSegments();
+        Semaphore permits = new Semaphore(concurrency);
+        List<CompletableFuture<Void>> calls = new ArrayList<>();
+        List<PrecomputedRecommendation> rows = Collections.synchronizedList(new ArrayList<>());
+        int reused = 0;
+        for (ProfileSegment segment : segments) {
+            for (int score = 1; score <= 5; score++) {
+                OffsetDateTime at = generatedAt.get(tableKey(score, segment.key()));
+                if (at != null && at.isAfter(staleBefore)) {
+                    reused++;
+                    continue;
+                }
+                permits.acquire();
+                int s = score;
+                String category = RecommendationService.toCategory(s);
+                calls.add(openAIClient
+                        .recommendActivitiesAsync(s, category, segment.promptText(), AiRequestScheduler.Priority.BACKGROUND)
+                        .thenAccept(ai -> ai.ifPresent(r -> rows.add(store(s, category, segment, r))))
+                        .whenComplete((v, e) -> permits.release()));
+            }
+        }
+        CompletableFuture.allOf(calls.toArray(new CompletableFuture[0])).join();
+        repository.saveAll(rows);
+        lastRefreshGenerated = rows.size();
+        lastRefreshReused = reused;
+        lastRefreshAt = OffsetDateTime.now();
+        log.info("Precomputed {} recommendations for {} segments ({} still fresh)", rows.size(), segments.size(), reused);
+    }
+
+    private PrecomputedRecommendation store(int score, String baseCategory, ProfileSegment segment, OpenAIClient.AiResult r) {
+        String category = r.getCategory() == null || r.getCategory().isBlank() ? baseCategory : r.getCategory();
+        List<String> activities = List.copyOf(r.getActivities());
+        table.put(tableKey(score, segment.key()), new CachedRecommendation(new RecommendationResponse(
+                score, category, activities, r.getTips(), RecommendationService.PROMPT_VERSION_AI, false)));
+        String activitiesJson;
+        try {
+            activitiesJson = objectMapper.writeValueAsString(activities);
+        } catch (Exception e) {
+            activitiesJson = "[]";
+        }
+        return new PrecomputedRecommendation(score, segment.key(), category, activitiesJson, r.getTips(),
+                RecommendationService.PROMPT_VERSION_AI, OffsetDateTime.now());
+    }
+
+    /** The unknown segment plus the most frequent segments among recently active users. */
+    private List<ProfileSegment> popularSegments() {
+        Map<ProfileSegment, Integer> counts = new HashMap<>();
+        var page = PageRequest.of(0, userSample, Sort.by(Sort.Direction.DESC, "lastLogin"));
+        for (User user : userRepository.findAll(page)) {
+            counts.merge(ProfileSegment.of(user, objectMapper), 1, Integer::sum);
+        }
+        List<ProfileSegment> out = new ArrayList<>();
+        out.add(ProfileSegment.UNKNOWN);
+        counts.entrySet().stream()
+                .filter(e -> !e.getKey().equals(ProfileSegment.UNKNOWN))
+                .sorted(Map.Entry.<ProfileSegment, Integer>comparingByValue().reversed())
+                .limit(topSegments)
+                .forEach(e -> out.add(e.getKey()));
+        return out;
+    }
+
+    private static String tableKey(int score, String segmentKey) {
+        return score + "|" + segmentKey;
+    }
+}
@@ -1,134 +1,226 @@
 package com.moodify.service;
 
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import com.moodify.ai.OpenAIClient;
+import com.moodify.ai.SingleFlight;
+import com.moodify.cache.InvalidationBus;
+import com.moodify.cache.RecommendationDiskCache;
 import com.moodify.dto.DailyRecommendationRequest;
 import com.moodify.dto.RecommendationResponse;
 import com.moodify.dto.WeekRecommendationRequest;
 import com.moodify.entity.User;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDate;
-import java.time.Period;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class RecommendationService {
 
-    private static final String PROMPT_VERSION_AI = "v1-ai";
-    private static final String PROMPT_VERSION_FB = "v1-fallback";
+    static final String PROMPT_VERSION_AI = "v1-ai";
+    static final String PROMPT_VERSION_FB = "v1-fallback";
 
-    private final Map<String, RecommendationResponse> cache = new ConcurrentHashMap<>();
+    private final Cache<String, CachedRecommendation> cache;
+    private final SingleFlight<String, CachedRecommendation> inFlight = new SingleFlight<>();
     private final OpenAIClient openAIClient;
     private final DailyMoodService dailyMoodService;
     private final UserService userService;
     private final ObjectMapper objectMapper;
+    private final RecommendationPrecomputeService precomputed;
+    private final int hotHits;
+    private final RecommendationDiskCache diskCache;
+    private final ProfileContextService profileContextService;
+    private final InvalidationBus invalidationBus;
 
-    public RecommendationService(OpenAIClient openAIClient, DailyMoodService dailyMoodService, UserService userService, ObjectMapper objectMapper) {
+    public RecommendationService(OpenAIClient openAIClient, DailyMoodService dailyMoodService, UserService userService,
+                                 ObjectMapper objectMapper, Cache<String, CachedRecommendation> recommendationCache,
+                                 RecommendationPrecomputeService precomputed,
+                                 @Value("${recommendation.cache.hotHits:3}") int hotHits,
+                                 RecommendationDiskCache diskCache,
+                                 ProfileContextService profileContextService,
+                                 InvalidationBus invalidationBus) {
+        this.invalidationBus = invalidationBus;
+        this.diskCache = diskCache;
+        this.profileContextService = profileContextService;
+        this.cache = recommendationCache;
+        this.precomputed = precomputed;
+        this.hotHits = hotHits;
         this.openAIClient = openAIClient;
         this.dailyMoodService = dailyMoodService;
         this.userService = userService;
         this.objectMapper = objectMapper;
+        // "recommendation:<cache key>" drops one entry, the bare prefix everything, precomputed
+        // answers included. L2 goes too, otherwise the next lookup would promote the stale entry
+        // straight back into L1.
+        invalidationBus.subscribe(InvalidationBus.RECOMMENDATION_PREFIX, key -> {
+            String cacheKey = key.substring(InvalidationBus.RECOMMENDATION_PREFIX.length());
+            if (cacheKey.isEmpty()) {
+                precomputed.clear();
+                diskCache.clear();
+                cache.invalidateAll();
+            } else {
+                diskCache.remove(cacheKey);
+                cache.invalidate(cacheKey);
+            }
+        });
     }
 
-    public RecommendationResponse recommendDaily(DailyRecommendationRequest req) {
+    /**
+     * Returns a shared, immutable view: cache hits hand out the entry's pre-built hit view (and,
+     * once the entry is hot, its pre-serialized JSON) instead of copying the response.
+     */
+    public CachedRecommendation.View recommendDaily(DailyRecommendationRequest req) {
         int score = clampScore(req.getScore());
         String context = normalize(req.getContext());
         String baseCategory = toCategory(score);
-        String extendedContext = context;
-        String userKey = "anon";
+        ProfileSegment segment = ProfileSegment.UNKNOWN;
         if (req.getUserId() != null) {
             try {
-                User user = userService.getById(req.getUserId());
-                extendedContext = enrichContextWithUserProfile(user, context);
-                userKey = user.getId().toString();
+                segment = profileContextService.segmentFor(userService.getById(req.getUserId()));
             } catch (Exception ignored) {
             }
         }
-        String key = "daily|user=" + userKey + "|score=" + score + "|ctx=" + extendedContext;
+        String promptContext = promptContext(context, segment);
+        String key = "daily|score=" + score + "|seg=" + segment.key() + "|ctx=" + context;
 
-        RecommendationResponse cached = cache.get(key);
-        if (cached != null) {
-            RecommendationResponse copy = copyOf(cached);
-            copy.setCached(true);
-            return copy;
+        if (context.isEmpty()) {
+            CachedRecommendation pre = precomputed.lookup(score, segment);
+            if (pre != null) return pre.hit(objectMapper, hotHits);
         }
 
-        Optional<OpenAIClient.AiResult> ai = openAIClient.recommendActivities(score, baseCategory, extendedContext);
-        if (ai.isPresent()) {
-            OpenAIClient.AiResult r = ai.get();
-            RecommendationResponse resp = new RecommendationResponse(
-                    score,
-                    fallback(r.getCategory(), baseCategory),
-                    r.getActivities(),
-                    r.getTips(),
-                    PROMPT_VERSION_AI,
-                    false
-            );
-            cache.put(key, resp);
-            return copyOf(resp);
-        }
+        CachedRecommendation cached = lookup(key);
+        if (cached != null) return cached.hit(objectMapper, hotHits);
 
-        RecommendationResponse resp = new RecommendationResponse(
-                score,
-                baseCategory,
-                fallbackActivities(baseCategory),
-                fallbackTips(baseCategory),
-                PROMPT_VERSION_FB,
-                false
-        );
-        cache.put(key, resp);
-        return copyOf(resp);
+        return inFlight.execute(key, () -> generate(key, score, baseCategory, promptContext)).fresh();
     }
 
-    public RecommendationResponse recommendForWeek(WeekRecommendationRequest req) {
+    public CachedRecommendation.View recommendForWeek(WeekRecommendationRequest req) {
         User user = userService.getById(req.getUserId());
         int weekNumber = req.getWeekNumber();
         double avg = dailyMoodService.computeAverageMoodForWeek(user, weekNumber);
 
         int score = clampScore((int)Math.round(avg));
         String context = normalize(req.getContext());
-        String extendedContext = enrichContextWithUserProfile(user, context);
+        ProfileSegment segment = profileContextService.segmentFor(user);
+        String promptContext = promptContext(context, segment);
         String baseCategory = toCategory(score);
-        String key = "week|user=" + user.getId() + "|week=" + weekNumber + "|score=" + score + "|ctx=" + extendedContext;
+        // The week only matters through its average score, so it is not part of the key.
+        String key = "week|score=" + score + "|seg=" + segment.key() + "|ctx=" + context;
 
-        RecommendationResponse cached = cache.get(key);
-        if (cached != null) {
-            RecommendationResponse copy = copyOf(cached);
-            copy.setCached(true);
-            return copy;
+        if (context.isEmpty()) {
+            CachedRecommendation pre = precomputed.lookup(score, segment);
+            if (pre != null) return pre.hit(objectMapper, hotHits);
         }
 
-        Optional<OpenAIClient.AiResult> ai = openAIClient.recommendActivities(score, baseCategory, extendedContext);
+        CachedRecommendation cached = lookup(key);
+        if (cached != null) return cached.hit(objectMapper, hotHits);
+
+        return inFlight.execute(key, () -> generate(key, score, baseCategory, promptContext)).fresh();
+    }
+
+    /**
+     * Drops the cached answer under {@code cacheKey} on all nodes (L1 and L2). With a null key
+     * every cached and precomputed answer goes, stored precomputed rows included. For answers
+     * that turned out wrong, or after fallback texts changed.
+     */
+    public void invalidate(String cacheKey) {
+        if (cacheKey == null) precomputed.deleteStored();
+        invalidationBus.publish(InvalidationBus.RECOMMENDATION_PREFIX + (cacheKey == null ? "" : cacheKey));
+    }
+
+    /** Counters for concurrent cache misses that were collapsed into one AI call. */
+    public Map<String, Object> singleFlightStats() {
+        return inFlight.stats();
+    }
+
+    public Map<String, Object> precomputeStats() {
+        return precomputed.stats();
+    }
+
+    public Map<String, Object> cacheStats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("size", cache.estimatedSize());
+        out.put("weightBytes", cache.policy().eviction().map(e -> e.weightedSize().orElse(0L)).orElse(0L));
+        out.put("hits", stats.hitCount());
+        out.put("misses", stats.missCount());
+        out.put("hitRate", stats.hitRate());
+        out.put("evictions", stats.evictionCount());
+        out.put("evictionWeightBytes", stats.evictionWeight());
+        out.put("l2", diskCache.stats());
+        out.put("invalidation", invalidationBus.stats());
+        return out;
+    }
+
+    /** L1 (heap) first, then the on-disk L2; an L2 hit is promoted into L1. */
+    private CachedRecommendation lookup(String key) {
+        CachedRecommendation hit = cache.getIfPresent(key);
+        if (hit != null) return hit;
+        byte[] json = diskCache.get(key);
+        if (json == null) return null;
+        try {
+            CachedRecommendation entry = new CachedRecommendation(objectMapper.readValue(json, RecommendationResponse.class));
+            // Older files may still hold fallbacks; those are not worth promoting
+            if (entry.isFallback()) return null;
+            cache.put(key, entry);
+            return entry;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private void store(String key, CachedRecommendation entry) {
+        cache.put(key, entry);
+        try {
+            diskCache.put(key, objectMapper.writeValueAsBytes(entry.response()));
+        } catch (Exception ignored) {
+            // L2 is best effort
+        }
+    }
+
+    /**
+     * Cache-miss path, run by a single leader per key; concurrent misses on the same key wait for it.
+     */
+    private CachedRecommendation generate(String key, int score, String baseCategory, String extendedContext) {
+        // asMap() lookup so the re-check is not counted as a second miss
+        CachedRecommendation raced = cache.asMap().get(key);
+        if (raced != null) return raced;
+
+        boolean aiAvailable = openAIClient.isAvailable();
+        Optional<OpenAIClient.AiResult> ai = aiAvailable
+                ? openAIClient.recommendActivities(score, baseCategory, extendedContext)
+                : Optional.empty();
         if (ai.isPresent()) {
             OpenAIClient.AiResult r = ai.get();
-            RecommendationResponse resp = new RecommendationResponse(
+            CachedRecommendation entry = new CachedRecommendation(new RecommendationResponse(
                     score,
                     fallback(r.getCategory(), baseCategory),
                     r.getActivities(),
                     r.getTips(),
                     PROMPT_VERSION_AI,
                     false
-            );
-            cache.put(key, resp);
-            return copyOf(resp);
+            ));
+            store(key, entry);
+            return entry;
         }
 
-        RecommendationResponse resp = new RecommendationResponse(
+        CachedRecommendation entry = new CachedRecommendation(new RecommendationResponse(
                 score,
                 baseCategory,
                 fallbackActivities(baseCategory),
                 fallbackTips(baseCategory),
                 PROMPT_VERSION_FB,
                 false
-        );
-        cache.put(key, resp);
-        return copyOf(resp);
+        ));
+        // A fallback only absorbs repeats of a failed call: heap only, with the short fallback TTL
+        // (see CacheConfig), never L2. While the breaker is open it isn't cached at all, so the AI
+        // answer wins as soon as it recovers.
+        if (aiAvailable) cache.put(key, entry);
+        return entry;
     }
 
     private int clampScore(Integer s) {
@@ -136,7 +228,7 @@ public class RecommendationService {
         return Math.max(1, Math.min(5, s));
     }
 
-    private String toCategory(int score) {
+    static String toCategory(int score) {
         return switch (score) {
             case 1 -> "angry";
             case 2 -> "sad";
@@ -148,7 +240,7 @@ public class RecommendationService {
 
     private String normalize(String context) {
         if (context == null) return "";
-        String s = context.trim();
+        String s = context.trim().replaceAll("\\s+", " ");
         return s.length() > 200 ? s.substring(0, 200) : s;
     }
 
@@ -201,48 +293,13 @@ public class RecommendationService {
         };
     }
 
-    private RecommendationResponse copyOf(RecommendationResponse r) {
-        return new RecommendationResponse(
-                r.getScore(), r.getCategory(), new ArrayList<>(r.getActivities()),
-                r.getTips(), r.getPromptVersion(), r.isCached()
-        );
-    }
-
-    private String enrichContextWithUserProfile(User user, String baseContext) {
-        StringBuilder sb = new StringBuilder();
-        if (baseContext != null && !baseContext.isBlank()) sb.append(baseContext.trim());
-
-        // Age
-        if (user.getBirthDate() != null) {
-            try {
-                int age = Period.between(user.getBirthDate(), LocalDate.now()).getYears();
-                if (age > 0 && age < 120) {
-                    if (sb.length() > 0) sb.append(" | ");
-                    sb.append("umur:").append(age);
-                }
-            } catch (Exception ignored) {}
-        }
-
-        // Gender
-        if (user.getGender() != null && !user.getGender().isBlank()) {
-            if (sb.length() > 0) sb.append(" | ");
-            sb.append("gender:").append(user.getGender());
-        }
-
-        // Hobbies
-        String hj = user.getHobbiesJson();
-        if (hj != null && !hj.isBlank()) {
-            try {
-                List<String> hobbies = objectMapper.readValue(hj, new TypeReference<List<String>>(){});
-                if (hobbies != null && !hobbies.isEmpty()) {
-                    if (sb.length() > 0) sb.append(" | ");
-                    List<String> trimmed = hobbies.size() > 6 ? hobbies.subList(0, 6) : hobbies;
-                    sb.append("hobi:").append(String.join(",", trimmed));
-                }
-            } catch (Exception ignored) {}
-        }
-
-        String out = sb.toString();
-        return out.length() > 400 ? out.substring(0, 400) : out;
+    /**
+     * Free-text context plus the canonical profile segment. Only segment-level data reaches the
+     * prompt, so the cached answer is valid for every user in the segment.
+     */
+    private String promptContext(String context, ProfileSegment segment) {
+        String profile = segment.promptText();
+        if (context.isEmpty()) return profile;
+        return profile.isEmpty() ? context : context + " | " + profile;
     }
 }
@@ -0,0 +1,25 @@
+package com.moodify.service;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed table of fair locks indexed by key hash. The same key always maps to the same lock and
+ * memory stays bounded no matter how many keys exist; unrelated keys only rarely share a stripe.
+ */
+final class StripedLocks {
+
+    private final ReentrantLock[] locks;
+
+    StripedLocks(int stripes) {
+        int n = 1;
+        while (n < stripes) n <<= 1;
+        locks = new ReentrantLock[n];
+        for (int i = 0; i < n; i++) locks[i] = new ReentrantLock(true);
+    }
+
+    ReentrantLock forKey(Object key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return locks[h & (locks.length - 1)];
+    }
+}
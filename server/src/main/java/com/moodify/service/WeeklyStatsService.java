@@ -19,24 +19,27 @@ import java.util.stream.Collectors;
 public class WeeklyStatsService {
 
     private final WeeklyStatsRepository weeklyStatsRepository;
-    private final DailyMoodService dailyMoodService;
+    private final MoodQueryService moodQueryService;
     private final UserService userService;
     private final OpenAIClient openAIClient;
     private final RecommendationService recommendationService;
     private final ObjectMapper objectMapper;
+    private final ProfileContextService profileContextService;
 
     public WeeklyStatsService(WeeklyStatsRepository weeklyStatsRepository,
-                              DailyMoodService dailyMoodService,
+                              MoodQueryService moodQueryService,
                               UserService userService,
                               OpenAIClient openAIClient,
                               RecommendationService recommendationService,
-                              ObjectMapper objectMapper) {
+                              ObjectMapper objectMapper,
+                              ProfileContextService profileContextService) {
         this.weeklyStatsRepository = weeklyStatsRepository;
-        this.dailyMoodService = dailyMoodService;
+        this.moodQueryService = moodQueryService;
         this.userService = userService;
         this.openAIClient = openAIClient;
         this.recommendationService = recommendationService;
         this.objectMapper = objectMapper;
+        this.profileContextService = profileContextService;
     }
 
     @Transactional(readOnly = true)
@@ -44,15 +47,15 @@ public class WeeklyStatsService {
         User user = userService.getById(userId);
         Integer weekNumber = weekNumberOpt;
         if (weekNumber == null) {
-            var currentWeek = dailyMoodService.getCurrentWeek(user);
-            weekNumber = currentWeek.stream().findFirst().map(DailyMoodEntry::getWeekNumber).orElse(1);
+            weekNumber = DailyMoodService.computeRelativeWeekNumber(user, java.time.LocalDate.now());
         }
 
         final Integer targetWeek = weekNumber;
         Optional<WeeklyStats> existing = weeklyStatsRepository.findByUserAndWeekNumber(user, targetWeek);
 
-        // Ambil entri minggu spesifik langsung agar tidak tergantung lastLogin range
-        var weekEntries = dailyMoodService.getWeek(user, targetWeek);
+        // Ambil entri minggu spesifik langsung agar tidak tergantung lastLogin range.
+        // Lewat sisi baca: tidak membuat placeholder di dalam transaksi read-only.
+        var weekEntries = moodQueryService.submittedInWeek(user, targetWeek);
 
         String fingerprint = buildFingerprint(user, targetWeek, weekEntries);
         if (existing.isPresent()) {
@@ -102,7 +105,7 @@ public class WeeklyStatsService {
         String aiComment = null;
         List<String> activities = List.of();
         if (completeWeek) {
-            String profile = buildUserProfileContext(user);
+            String profile = profileContextService.contextFor(user);
             aiComment = openAIClient.weeklySummaryComment(breakdownText, profile).orElse(
                 breakdownText + " — Tetap jaga kesehatan emosimu."
             );
@@ -110,7 +113,7 @@ public class WeeklyStatsService {
             wreq.setUserId(userId);
             wreq.setWeekNumber(targetWeek);
             var rec = recommendationService.recommendForWeek(wreq);
-            activities = rec.getActivities();
+            activities = rec.response().getActivities();
         }
 
         if (!completeWeek) {
@@ -206,39 +209,4 @@ public class WeeklyStatsService {
         return java.time.LocalDate.now();
     }
 
-    private String buildUserProfileContext(User u) {
-        StringBuilder sb = new StringBuilder();
-        if (u.getBirthDate() != null) {
-            try {
-                int age = java.time.Period.between(u.getBirthDate(), java.time.LocalDate.now()).getYears();
-                if (age > 0 && age < 120) {
-                    if (sb.length() > 0) sb.append(" | ");
-                    sb.append("umur:").append(age);
-                }
-            } catch (Exception ignored) {}
-        }
-        if (u.getGender() != null && !u.getGender().isBlank()) {
-            if (sb.length() > 0) sb.append(" | ");
-            sb.append("gender:").append(u.getGender());
-        }
-        String hj = u.getHobbiesJson();
-        if (hj != null && !hj.isBlank()) {
-            try {
-                java.util.List<String> hobbies = objectMapper.readValue(hj, new com.fasterxml.jackson.core.type.TypeReference<java.util.List<String>>(){});
-                if (hobbies != null && !hobbies.isEmpty()) {
-                    if (sb.length() > 0) sb.append(" | ");
-                    java.util.List<String> trimmed = hobbies.size() > 6 ? hobbies.subList(0, 6) : hobbies;
-                    sb.append("hobi:").append(String.join(",", trimmed));
-                }
-            } catch (Exception ignored) {
-                String raw = hj.trim();
-                if (!raw.isEmpty()) {
-                    if (sb.length() > 0) sb.append(" | ");
-                    sb.append("hobi:").append(raw.length() > 120 ? raw.substring(0, 120) : raw);
-                }
-            }
-        }
-        String out = sb.toString();
-        return out.length() > 400 ? out.substring(0, 400) : out;
-    }
 }
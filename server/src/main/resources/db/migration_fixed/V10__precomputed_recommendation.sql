@@ -0,0 +1,11 @@
+-- AI recommendations generated ahead of time for every score and popular profile segment
+CREATE TABLE IF NOT EXISTS precomputed_recommendation (
+    score INT NOT NULL,
+    segment_key VARCHAR(128) NOT NULL,
+    category VARCHAR(16) NOT NULL,
+    activities_json TEXT NOT NULL,
+    tips TEXT NOT NULL,
+    prompt_version VARCHAR(32) NOT NULL,
+    generated_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+    PRIMARY KEY (score, segment_key)
+);
@@ -0,0 +1,6 @@
+-- Covers the per-week mood aggregate (DailyMoodEntryRepository.aggregateWeeks): only rows with a
+-- submitted mood, keyed by user and relative week, with mood and date carried for index-only scans.
+CREATE INDEX IF NOT EXISTS idx_daily_mood_user_week
+    ON daily_mood_entries (user_id, week_number)
+    INCLUDE (mood, entry_date)
+    WHERE mood IS NOT NULL;
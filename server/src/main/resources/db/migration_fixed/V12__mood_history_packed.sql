@@ -0,0 +1,8 @@
+-- Per-user mood history packed 3 bits per day (0 = no entry, 1..5 = mood) from start_date
+CREATE TABLE IF NOT EXISTS mood_history_packed (
+    user_id UUID PRIMARY KEY REFERENCES users(id) ON DELETE CASCADE,
+    start_date DATE NOT NULL,
+    day_count INT NOT NULL,
+    data BYTEA NOT NULL,
+    updated_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
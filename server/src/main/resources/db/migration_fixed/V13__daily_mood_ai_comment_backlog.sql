@@ -0,0 +1,10 @@
+-- AI comment backlog driven by the table itself: entries with a reason but no comment are claimed
+-- by setting ai_comment_claimed_at (a lease, so a crashed node's claims expire) and retried up to
+-- a limit counted in ai_comment_attempts.
+ALTER TABLE daily_mood_entries
+    ADD COLUMN IF NOT EXISTS ai_comment_attempts INT NOT NULL DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS ai_comment_claimed_at TIMESTAMPTZ;
+
+CREATE INDEX IF NOT EXISTS idx_daily_mood_ai_comment_backlog
+    ON daily_mood_entries (created_at)
+    WHERE ai_comment IS NULL AND reason IS NOT NULL AND mood IS NOT NULL;
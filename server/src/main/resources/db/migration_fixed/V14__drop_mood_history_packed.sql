@@ -0,0 +1,3 @@
+-- Mood histories are rebuilt in memory from daily_mood_entries; keeping a stored copy current
+-- cost a locking read and an update on every submit.
+DROP TABLE IF EXISTS mood_history_packed;
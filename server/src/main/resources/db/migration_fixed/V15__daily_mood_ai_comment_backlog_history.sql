@@ -0,0 +1,16 @@
+-- Entries written before the AI comment backlog existed are not part of it. Without this, every
+-- historical entry with a reason and no comment would be queued on deploy, an unbounded wave of
+-- LLM calls. They are marked exhausted with an attempt count far above any configured
+-- ai.comment.backlog.maxAttempts.
+UPDATE daily_mood_entries
+   SET ai_comment_attempts = 2147483647
+ WHERE ai_comment IS NULL
+   AND reason IS NOT NULL
+   AND mood IS NOT NULL;
+
+-- Lead with the attempt count so the backlog query's "attempts < maxAttempts" is an index range:
+-- exhausted rows, historical or not, are never walked when picking the next entries.
+DROP INDEX IF EXISTS idx_daily_mood_ai_comment_backlog;
+CREATE INDEX IF NOT EXISTS idx_daily_mood_ai_comment_backlog
+    ON daily_mood_entries (ai_comment_attempts, created_at)
+    WHERE ai_comment IS NULL AND reason IS NOT NULL AND mood IS NOT NULL;
@@ -0,0 +1,11 @@
+-- Shared cache of AI completions keyed by SHA-256 of model, prompt version, prompts and temperature
+CREATE TABLE IF NOT EXISTS ai_response_cache (
+    cache_key VARCHAR(64) PRIMARY KEY,
+    method VARCHAR(32) NOT NULL,
+    model VARCHAR(64) NOT NULL,
+    prompt_version VARCHAR(32) NOT NULL,
+    content TEXT NOT NULL,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+    expires_at TIMESTAMPTZ NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_ai_response_cache_expires ON ai_response_cache(expires_at);
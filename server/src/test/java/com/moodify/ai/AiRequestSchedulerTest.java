@@ -0,0 +1,116 @@
+package com.moodify.ai;
+
+import com.moodify.ai.AiRequestScheduler.Priority;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Small buckets so waits are short: a per-minute limit of 60 000 refills 1 000 per second, and
+ * every test starts by spending the whole bucket in one admission.
+ */
+class AiRequestSchedulerTest {
+
+    private static final int FAST_TPM = 60_000;
+    private static final int SLOW_TPM = 600;
+
+    private AiRequestScheduler scheduler;
+
+    @AfterEach
+    void tearDown() {
+        if (scheduler != null) scheduler.destroy();
+    }
+
+    @Test
+    @DisplayName("Waiting calls are admitted in priority order, FIFO within a priority")
+    void admitsInPriorityOrder() throws Exception {
+        scheduler = new AiRequestScheduler(10_000, FAST_TPM, 10, 5_000);
+        assertTrue(scheduler.admit(Priority.STANDARD, FAST_TPM).getNow(false));
+
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        List<CompletableFuture<Boolean>> all = new ArrayList<>();
+        all.add(track(scheduler.admit(Priority.BACKGROUND, 100), "background", order));
+        all.add(track(scheduler.admit(Priority.STANDARD, 100), "standard-1", order));
+        all.add(track(scheduler.admit(Priority.INTERACTIVE, 100), "interactive", order));
+        all.add(track(scheduler.admit(Priority.STANDARD, 100), "standard-2", order));
+        assertEquals(4, scheduler.stats().get("queued"));
+
+        for (CompletableFuture<Boolean> f : all) assertTrue(f.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of("interactive", "standard-1", "standard-2", "background"), order);
+        assertEquals(4L, scheduler.stats().get("admittedAfterWait"));
+    }
+
+    @Test
+    @DisplayName("A full queue evicts its lowest-priority waiter for a more urgent call, never for an equal one")
+    void fullQueueEvictsLowestPriority() {
+        scheduler = new AiRequestScheduler(10_000, SLOW_TPM, 2, 10_000);
+        assertTrue(scheduler.admit(Priority.STANDARD, SLOW_TPM).getNow(false));
+
+        CompletableFuture<Boolean> standard = scheduler.admit(Priority.STANDARD, SLOW_TPM);
+        CompletableFuture<Boolean> background = scheduler.admit(Priority.BACKGROUND, SLOW_TPM);
+        assertFalse(standard.isDone());
+        assertFalse(background.isDone());
+
+        CompletableFuture<Boolean> interactive = scheduler.admit(Priority.INTERACTIVE, SLOW_TPM);
+        assertEquals(false, background.getNow(null), "background waiter evicted");
+        assertFalse(interactive.isDone());
+
+        // Queue holds STANDARD and INTERACTIVE: neither a BACKGROUND nor another STANDARD call may evict
+        assertEquals(false, scheduler.admit(Priority.BACKGROUND, 10).getNow(null));
+        assertEquals(false, scheduler.admit(Priority.STANDARD, 10).getNow(null));
+        assertFalse(standard.isDone());
+
+        var stats = scheduler.stats();
+        assertEquals(1L, stats.get("evicted"));
+        assertEquals(2L, stats.get("rejectedQueueFull"));
+        assertEquals(2, stats.get("queued"));
+    }
+
+    @Test
+    @DisplayName("A call not admitted within the maximum wait is refused")
+    void refusesAfterMaxWait() throws Exception {
+        scheduler = new AiRequestScheduler(10_000, SLOW_TPM, 10, 100);
+        assertTrue(scheduler.admit(Priority.STANDARD, SLOW_TPM).getNow(false));
+
+        long started = System.nanoTime();
+        CompletableFuture<Boolean> waiter = scheduler.admit(Priority.INTERACTIVE, SLOW_TPM);
+
+        assertFalse(waiter.get(2, TimeUnit.SECONDS));
+        long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        assertTrue(waitedMillis >= 90, "refused after " + waitedMillis + " ms");
+        assertEquals(1L, scheduler.stats().get("rejectedTimeout"));
+        assertEquals(0, scheduler.stats().get("queued"));
+    }
+
+    @Test
+    @DisplayName("A 429 empties the request bucket, so the next call waits for a refill")
+    void rateLimitedDrainsRequestBucket() throws Exception {
+        // 600 requests per minute: one request token every 100 ms
+        scheduler = new AiRequestScheduler(600, FAST_TPM, 10, 2_000);
+        assertTrue(scheduler.admit(Priority.STANDARD, 10).getNow(false));
+
+        scheduler.onRateLimited();
+        CompletableFuture<Boolean> next = scheduler.admit(Priority.STANDARD, 10);
+
+        assertFalse(next.isDone());
+        assertTrue(next.get(2, TimeUnit.SECONDS));
+        var stats = scheduler.stats();
+        assertEquals(1L, stats.get("admittedImmediately"));
+        assertEquals(1L, stats.get("admittedAfterWait"));
+    }
+
+    private static CompletableFuture<Boolean> track(CompletableFuture<Boolean> f, String name, List<String> order) {
+        f.thenAccept(admitted -> {
+            if (admitted) order.add(name);
+        });
+        return f;
+    }
+}
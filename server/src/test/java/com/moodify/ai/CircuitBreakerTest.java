@@ -0,0 +1,145 @@
+package com.moodify.ai;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private static final long FAST = Duration.ofMillis(100).toNanos();
+    private static final long SLOW = Duration.ofSeconds(2).toNanos();
+    private static final Duration OPEN_FOR = Duration.ofSeconds(10);
+
+    private final AtomicLong now = new AtomicLong();
+    private CircuitBreaker breaker;
+
+    @BeforeEach
+    void setUp() {
+        // Window of 10, opens from 4 recorded calls at 50% failures or 50% slow calls, 2 trial calls
+        breaker = new CircuitBreaker(10, 4, 50, 50, Duration.ofSeconds(1), OPEN_FOR, 2, now::get);
+    }
+
+    @Test
+    @DisplayName("Stays closed below the minimum number of calls")
+    void staysClosedBelowMinimumCalls() {
+        failCalls(3);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    @DisplayName("Stays closed below the failure-rate threshold")
+    void staysClosedBelowThreshold() {
+        succeedCalls(5);
+        failCalls(3);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    @DisplayName("CLOSED -> OPEN once the failure rate reaches the threshold")
+    void opensOnFailureRate() {
+        succeedCalls(2);
+        failCalls(2);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.isCallPermitted());
+        assertFalse(breaker.tryAcquire());
+        assertEquals(1L, breaker.snapshot().get("rejectedCalls"));
+    }
+
+    @Test
+    @DisplayName("CLOSED -> OPEN once the slow-call rate reaches the threshold")
+    void opensOnSlowCallRate() {
+        for (int i = 0; i < 4; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onSuccess(SLOW);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    @DisplayName("OPEN -> HALF_OPEN after the cooldown, with a limited number of trial calls")
+    void halfOpensAfterCooldown() {
+        failCalls(4);
+        advance(OPEN_FOR.minusMillis(1));
+        assertFalse(breaker.isCallPermitted());
+        assertFalse(breaker.tryAcquire());
+
+        advance(Duration.ofMillis(1));
+        assertTrue(breaker.isCallPermitted());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire(), "only two trial calls");
+
+        // A released permit (call never made) can be reused
+        breaker.release();
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    @DisplayName("HALF_OPEN -> CLOSED when every trial call succeeds, with a fresh window")
+    void closesAfterSuccessfulTrials() {
+        failCalls(4);
+        advance(OPEN_FOR);
+        assertTrue(breaker.tryAcquire());
+        breaker.onSuccess(FAST);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+        breaker.onSuccess(FAST);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.snapshot().get("recordedCalls"));
+        failCalls(3);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState(), "old failures were forgotten");
+    }
+
+    @Test
+    @DisplayName("HALF_OPEN -> OPEN on a failed trial call, for another full cooldown")
+    void reopensOnFailedTrial() {
+        failCalls(4);
+        advance(OPEN_FOR);
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure(FAST);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        advance(OPEN_FOR.minusMillis(1));
+        assertFalse(breaker.tryAcquire());
+        advance(Duration.ofMillis(1));
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    @DisplayName("A slow trial call counts as failed")
+    void reopensOnSlowTrial() {
+        failCalls(4);
+        advance(OPEN_FOR);
+        assertTrue(breaker.tryAcquire());
+        breaker.onSuccess(SLOW);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    private void succeedCalls(int n) {
+        for (int i = 0; i < n; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onSuccess(FAST);
+        }
+    }
+
+    private void failCalls(int n) {
+        for (int i = 0; i < n; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onFailure(FAST);
+        }
+    }
+
+    private void advance(Duration d) {
+        now.addAndGet(d.toNanos());
+    }
+}
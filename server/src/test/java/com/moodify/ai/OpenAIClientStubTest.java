@@ -0,0 +1,130 @@
+package com.moodify.ai;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("dev")
+class OpenAIClientStubTest {
+
+    private static final OpenAIStubServer STUB = startStub();
+
+    @DynamicPropertySource
+    static void openAiProperties(DynamicPropertyRegistry registry) {
+        registry.add("openai.api.baseUrl", STUB::baseUrl);
+        registry.add("openai.api.key", () -> "stub-key");
+        registry.add("openai.cache.enabled", () -> "false");
+        registry.add("openai.health.enabled", () -> "false");
+        registry.add("openai.http.totalTimeoutMillis", () -> "2000");
+    }
+
+    @AfterAll
+    static void stopStub() {
+        STUB.close();
+    }
+
+    @Autowired
+    private OpenAIClient openAIClient;
+
+    @Autowired
+    private AiHealthProber healthProber;
+
+    @Test
+    @DisplayName("All three prompt types parse the stub's completions")
+    void completionsForEachPromptType() {
+        STUB.latency(OpenAIStubServer.LatencyProfile.fixed(20));
+
+        Optional<OpenAIClient.AiResult> activities = openAIClient.recommendActivities(7, "happy", "stub-test-activities");
+        assertTrue(activities.isPresent());
+        assertTrue(activities.get().getActivities().size() >= 3);
+
+        Optional<String> comment = openAIClient.commentOnReason(3, "stub-test-reason " + System.nanoTime());
+        assertTrue(comment.isPresent());
+
+        Optional<String> weekly = openAIClient.weeklySummaryComment("50% Happy, 50% Sad");
+        assertTrue(weekly.isPresent());
+        assertTrue(weekly.get().startsWith("50% Happy, 50% Sad —"));
+    }
+
+    @Test
+    @DisplayName("Streaming delivers tokens that add up to the final text")
+    void streamingCompletion() {
+        STUB.latency(OpenAIStubServer.LatencyProfile.fixed(0));
+        List<String> tokens = new ArrayList<>();
+
+        Optional<String> text = openAIClient.streamCommentOnReason(4, "stub-test-stream " + System.nanoTime(), null,
+                tokens::add).join();
+
+        assertTrue(text.isPresent());
+        assertTrue(tokens.size() > 1);
+        assertEquals(text.get(), String.join("", tokens).strip());
+    }
+
+    @Test
+    @DisplayName("A stream that stalls after its headers is cut off at the total timeout")
+    void stalledStreamIsCutOff() throws Exception {
+        STUB.latency(OpenAIStubServer.LatencyProfile.fixed(0)).streamChunkDelayMillis(30_000);
+        try {
+            long started = System.nanoTime();
+            Optional<String> text = openAIClient.streamCommentOnReason(4, "stub-test-stall " + System.nanoTime(), null,
+                    token -> {}).get(10, TimeUnit.SECONDS);
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+            assertTrue(text.isEmpty());
+            assertTrue(elapsedMillis < 4000, "stream ran for " + elapsedMillis + " ms");
+        } finally {
+            STUB.streamChunkDelayMillis(5);
+        }
+    }
+
+    @Test
+    @DisplayName("Upstream errors degrade to an empty result instead of failing")
+    void errorsDegradeToEmpty() {
+        STUB.latency(OpenAIStubServer.LatencyProfile.fixed(0)).errorRate(1.0, 500);
+        try {
+            assertTrue(openAIClient.commentOnReason(2, "stub-test-error " + System.nanoTime()).isEmpty());
+        } finally {
+            STUB.errorRate(0.0, 500);
+        }
+    }
+
+    @Test
+    @DisplayName("Health is not reported reachable before the first probe")
+    void healthBeforeAndAfterFirstProbe() {
+        STUB.latency(OpenAIStubServer.LatencyProfile.fixed(0));
+        assertFalse(openAIClient.health(false).isReachable());
+
+        // Scheduled probes are off here, so the initial snapshot is still unprobed
+        AiHealthProber.Snapshot initial = healthProber.current();
+        assertEquals(0, initial.getProbes());
+        assertNull(initial.getCheckedAt());
+        assertFalse(initial.getHealth().isReachable());
+
+        AiHealthProber.Snapshot probed = healthProber.refreshNow();
+        assertTrue(probed.getHealth().isReachable());
+        assertEquals(1, probed.getProbes());
+    }
+
+    private static OpenAIStubServer startStub() {
+        try {
+            return OpenAIStubServer.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
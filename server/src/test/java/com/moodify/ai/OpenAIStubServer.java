@@ -0,0 +1,256 @@
+package com.moodify.ai;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process, OpenAI-compatible stub for tests and load experiments. Serves
+ * {@code POST /v1/chat/completions} (plain and {@code stream: true}) and {@code GET /v1/models/{id}},
+ * answering each of the prompt types in {@link OpenAIClient} with schema-valid content.
+ * Latency and error rate are configurable and driven by a seeded {@link Random}, so a slow or
+ * flaky upstream can be reproduced deterministically. Point {@code openai.api.baseUrl} at
+ * {@link #baseUrl()}.
+ */
+public class OpenAIStubServer implements AutoCloseable {
+
+    /** Response delay in milliseconds, sampled per request. */
+    public interface LatencyProfile {
+        long sampleMillis(Random random);
+
+        static LatencyProfile fixed(long millis) {
+            return random -> millis;
+        }
+
+        /** Log-normal around {@code medianMillis}; sigma 0.5 is a mild tail, 1.0 a heavy one. */
+        static LatencyProfile lognormal(double medianMillis, double sigma) {
+            double mu = Math.log(medianMillis);
+            return random -> Math.round(Math.exp(mu + sigma * random.nextGaussian()));
+        }
+
+        /** Mostly {@code baseMillis}, but with probability {@code tailProbability} a {@code tailMillis} stall. */
+        static LatencyProfile longTail(long baseMillis, long tailMillis, double tailProbability) {
+            return random -> random.nextDouble() < tailProbability ? tailMillis : baseMillis;
+        }
+    }
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Random random;
+
+    private volatile LatencyProfile latency = LatencyProfile.fixed(0);
+    private volatile double errorRate;
+    private volatile int errorStatus = 500;
+    private volatile long streamChunkDelayMillis = 5;
+
+    private final AtomicLong chatRequests = new AtomicLong();
+    private final AtomicLong streamRequests = new AtomicLong();
+    private final AtomicLong modelRequests = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    private OpenAIStubServer(long seed) throws IOException {
+        this.random = new Random(seed);
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/v1/chat/completions", this::handleChat);
+        server.createContext("/v1/models/", this::handleModel);
+    }
+
+    public static OpenAIStubServer start() throws IOException {
+        return start(42L);
+    }
+
+    public static OpenAIStubServer start(long seed) throws IOException {
+        OpenAIStubServer stub = new OpenAIStubServer(seed);
+        stub.server.start();
+        return stub;
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/v1";
+    }
+
+    public OpenAIStubServer latency(LatencyProfile latency) {
+        this.latency = latency;
+        return this;
+    }
+
+    /** Fraction of requests answered with {@code status} instead of a completion. */
+    public OpenAIStubServer errorRate(double errorRate, int status) {
+        this.errorRate = errorRate;
+        this.errorStatus = status;
+        return this;
+    }
+
+    public OpenAIStubServer streamChunkDelayMillis(long millis) {
+        this.streamChunkDelayMillis = millis;
+        return this;
+    }
+
+    public long chatRequests() { return chatRequests.get(); }
+    public long streamRequests() { return streamRequests.get(); }
+    public long modelRequests() { return modelRequests.get(); }
+    public long errors() { return errors.get(); }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handleModel(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            modelRequests.incrementAndGet();
+            if (!delayOrFail(exchange)) return;
+            String path = exchange.getRequestURI().getPath();
+            String id = path.substring(path.lastIndexOf('/') + 1);
+            writeJson(exchange, 200, Map.of("id", id, "object", "model", "owned_by", "stub"));
+        }
+    }
+
+    private void handleChat(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                writeJson(exchange, 405, Map.of("error", Map.of("message", "method not allowed")));
+                return;
+            }
+            JsonNode body = mapper.readTree(exchange.getRequestBody());
+            boolean stream = body.path("stream").asBoolean(false);
+            if (stream) streamRequests.incrementAndGet(); else chatRequests.incrementAndGet();
+            if (!delayOrFail(exchange)) return;
+
+            String system = body.path("messages").path(0).path("content").asText("");
+            String user = body.path("messages").path(1).path("content").asText("");
+            String model = body.path("model").asText("stub-model");
+            String content = contentFor(system, user);
+            int promptTokens = (system.length() + user.length()) / 4;
+            int completionTokens = Math.max(1, content.length() / 4);
+
+            if (stream) {
+                writeStream(exchange, model, content, promptTokens, completionTokens);
+            } else {
+                Map<String, Object> response = new LinkedHashMap<>();
+                response.put("id", "chatcmpl-stub");
+                response.put("object", "chat.completion");
+                response.put("model", model);
+                response.put("choices", List.of(Map.of(
+                        "index", 0,
+                        "message", Map.of("role", "assistant", "content", content),
+                        "finish_reason", "stop")));
+                response.put("usage", usage(promptTokens, completionTokens));
+                writeJson(exchange, 200, response);
+            }
+        }
+    }
+
+    /** Picks the answer shape from the system prompt, mirroring the prompts in {@link OpenAIClient}. */
+    private String contentFor(String system, String user) throws IOException {
+        if (system.contains("\"activities\"")) {
+            String category = field(user, "Kategori: ");
+            return mapper.writeValueAsString(Map.of(
+                    "category", category.isBlank() ? "neutral" : category,
+                    "activities", List.of("Jalan santai 15 menit", "Minum air putih", "Dengarkan musik favorit"),
+                    "tips", "Ambil napas dalam-dalam dan lakukan satu hal kecil dulu."));
+        }
+        if (system.contains("em dash")) {
+            String summary = field(user, "Ringkasan: ");
+            return mapper.writeValueAsString(Map.of("comment",
+                    summary + " — Minggu ini cukup beragam, tetap jaga ritme istirahatmu."));
+        }
+        String comment = "Terima kasih sudah berbagi. Coba luangkan waktu sejenak untuk dirimu hari ini.";
+        if (system.contains("{\"comment\"")) {
+            return mapper.writeValueAsString(Map.of("comment", comment));
+        }
+        return comment;
+    }
+
+    private void writeStream(HttpExchange exchange, String model, String content,
+                             int promptTokens, int completionTokens) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        String[] words = content.split("(?<= )");
+        for (String word : words) {
+            Map<String, Object> chunk = Map.of(
+                    "id", "chatcmpl-stub",
+                    "object", "chat.completion.chunk",
+                    "model", model,
+                    "choices", List.of(Map.of("index", 0, "delta", Map.of("content", word))));
+            writeEvent(out, mapper.writeValueAsString(chunk));
+            sleep(streamChunkDelayMillis);
+        }
+        writeEvent(out, mapper.writeValueAsString(Map.of(
+                "id", "chatcmpl-stub",
+                "object", "chat.completion.chunk",
+                "model", model,
+                "choices", List.of(),
+                "usage", usage(promptTokens, completionTokens))));
+        writeEvent(out, "[DONE]");
+    }
+
+    private boolean delayOrFail(HttpExchange exchange) throws IOException {
+        long delay;
+        boolean fail;
+        synchronized (random) {
+            delay = latency.sampleMillis(random);
+            fail = random.nextDouble() < errorRate;
+        }
+        sleep(delay);
+        if (fail) {
+            errors.incrementAndGet();
+            writeJson(exchange, errorStatus, Map.of("error", Map.of("message", "stub error", "type", "server_error")));
+            return false;
+        }
+        return true;
+    }
+
+    private void writeJson(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = mapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private static void writeEvent(OutputStream out, String data) throws IOException {
+        out.write(("data: " + data + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static Map<String, Object> usage(int promptTokens, int completionTokens) {
+        return Map.of(
+                "prompt_tokens", promptTokens,
+                "completion_tokens", completionTokens,
+                "total_tokens", promptTokens + completionTokens);
+    }
+
+    private static String field(String text, String prefix) {
+        for (String line : text.split("\n")) {
+            if (line.startsWith(prefix)) return line.substring(prefix.length()).strip();
+        }
+        return "";
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) return;
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
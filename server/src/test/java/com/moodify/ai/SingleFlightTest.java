@@ -0,0 +1,140 @@
+package com.moodify.ai;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(CALLERS);
+
+    @AfterEach
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Concurrent callers for one key share a single supplier call")
+    void concurrentCallersCollapse() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch leaderEntered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(pool.submit(() -> flight.execute("k", () -> {
+                calls.incrementAndGet();
+                leaderEntered.countDown();
+                await(release);
+                return "value";
+            })));
+        }
+        assertTrue(leaderEntered.await(5, TimeUnit.SECONDS));
+        awaitCollapsed(flight, CALLERS - 1);
+        release.countDown();
+
+        for (Future<String> f : results) assertEquals("value", f.get(5, TimeUnit.SECONDS));
+        assertEquals(1, calls.get());
+        assertEquals(0, flight.inFlight());
+        assertEquals(1L, flight.stats().get("executions"));
+    }
+
+    @Test
+    @DisplayName("The leader's exception reaches every waiter and the key is released")
+    void exceptionReachesAllWaiters() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        IllegalStateException failure = new IllegalStateException("upstream down");
+        CountDownLatch leaderEntered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(pool.submit(() -> flight.execute("k", () -> {
+                leaderEntered.countDown();
+                await(release);
+                throw failure;
+            })));
+        }
+        assertTrue(leaderEntered.await(5, TimeUnit.SECONDS));
+        awaitCollapsed(flight, CALLERS - 1);
+        release.countDown();
+
+        for (Future<String> f : results) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> f.get(5, TimeUnit.SECONDS));
+            // The leader rethrows as is; waiters see it through join()
+            Throwable cause = e.getCause() instanceof CompletionException ce ? ce.getCause() : e.getCause();
+            assertSame(failure, cause);
+        }
+        assertEquals(0, flight.inFlight());
+        assertEquals("again", flight.execute("k", () -> "again"));
+    }
+
+    @Test
+    @DisplayName("Async callers share the leader's future until it completes")
+    void asyncCallersShareOneFuture() {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+
+        CompletableFuture<String> first = flight.executeAsync("k", () -> {
+            calls.incrementAndGet();
+            return upstream;
+        });
+        CompletableFuture<String> second = flight.executeAsync("k", () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture("other");
+        });
+        assertEquals(1, flight.inFlight());
+        assertFalse(second.isDone());
+
+        upstream.complete("value");
+
+        assertEquals("value", first.join());
+        assertEquals("value", second.join());
+        assertEquals(1, calls.get());
+        assertEquals(0, flight.inFlight());
+
+        // A waiter cancelling its copy doesn't affect the others
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        CompletableFuture<String> a = flight.executeAsync("k", () -> pending);
+        CompletableFuture<String> b = flight.executeAsync("k", () -> pending);
+        a.cancel(true);
+        pending.complete("late");
+        assertEquals("late", b.join());
+        assertEquals(0, flight.inFlight());
+    }
+
+    private static void awaitCollapsed(SingleFlight<?, ?> flight, long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while ((long) flight.stats().get("collapsed") < expected) {
+            if (System.nanoTime() > deadline) fail("only " + flight.stats().get("collapsed") + " callers collapsed");
+            Thread.sleep(1);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(5, TimeUnit.SECONDS)) throw new IllegalStateException("latch timed out");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
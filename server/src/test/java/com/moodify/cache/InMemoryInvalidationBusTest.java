@@ -0,0 +1,138 @@
+package com.moodify.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryInvalidationBusTest {
+
+    private final List<BatchingInvalidationBus> buses = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (BatchingInvalidationBus bus : buses) bus.destroy();
+    }
+
+    @Test
+    @DisplayName("Every subscriber of a matching prefix sees a publish, right away")
+    void subscribersOnOneBusSeePublish() {
+        InMemoryInvalidationBus bus = track(new InMemoryInvalidationBus(64, 10));
+        List<String> first = new CopyOnWriteArrayList<>();
+        List<String> second = new CopyOnWriteArrayList<>();
+        List<String> moods = new CopyOnWriteArrayList<>();
+        bus.subscribe(InvalidationBus.USER_PREFIX, first::add);
+        bus.subscribe(InvalidationBus.USER_PREFIX, second::add);
+        bus.subscribe(InvalidationBus.MOOD_PREFIX, moods::add);
+
+        bus.publish("user:42");
+
+        assertEquals(List.of("user:42"), first);
+        assertEquals(List.of("user:42"), second);
+        assertTrue(moods.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Buses on one hub deliver to each other once, and never echo back to the publisher")
+    void busesOnAHubActAsNodes() throws Exception {
+        InMemoryInvalidationBus.Hub hub = new InMemoryInvalidationBus.Hub();
+        InMemoryInvalidationBus a = track(new InMemoryInvalidationBus(hub, 64, 10));
+        InMemoryInvalidationBus b = track(new InMemoryInvalidationBus(hub, 64, 10));
+        LinkedBlockingQueue<String> onA = new LinkedBlockingQueue<>();
+        LinkedBlockingQueue<String> onB = new LinkedBlockingQueue<>();
+        a.subscribe(InvalidationBus.RECOMMENDATION_PREFIX, onA::add);
+        b.subscribe(InvalidationBus.RECOMMENDATION_PREFIX, onB::add);
+
+        a.publish("recommendation:daily|score=3");
+
+        assertEquals("recommendation:daily|score=3", onB.poll(5, TimeUnit.SECONDS));
+        assertEquals("recommendation:daily|score=3", onA.poll());
+        awaitStat(a, "batchesSent", 1L);
+        assertNull(onA.poll(100, TimeUnit.MILLISECONDS), "no echo of a node's own batch");
+        assertEquals(1L, b.stats().get("keysReceived"));
+    }
+
+    @Test
+    @DisplayName("Keys published within the flush window go out as one batch, duplicates coalesced")
+    void batchesAndCoalesces() throws Exception {
+        RecordingBus bus = track(new RecordingBus(64, 200));
+
+        for (int i = 0; i < 5; i++) bus.publish("user:1");
+        bus.publish("user:2");
+        bus.publish("user:1");
+
+        BatchingInvalidationBus.Batch batch = bus.sent.poll(5, TimeUnit.SECONDS);
+        assertNotNull(batch);
+        assertEquals(List.of("user:1", "user:2"), batch.keys());
+        assertNull(bus.sent.poll(300, TimeUnit.MILLISECONDS));
+        var stats = bus.stats();
+        assertEquals(7L, stats.get("published"));
+        assertEquals(1L, stats.get("batchesSent"));
+        assertEquals(2L, stats.get("keysSent"));
+    }
+
+    @Test
+    @DisplayName("A full batch is sent without waiting for the flush window")
+    void fullBatchIsSentEarly() throws Exception {
+        RecordingBus bus = track(new RecordingBus(2, 10_000));
+
+        bus.publish("mood:1");
+        bus.publish("mood:2");
+        bus.publish("mood:3");
+
+        BatchingInvalidationBus.Batch first = bus.sent.poll(2, TimeUnit.SECONDS);
+        assertNotNull(first, "a full batch must not wait for the 10 s window");
+        assertEquals(List.of("mood:1", "mood:2"), first.keys());
+
+        bus.destroy();
+        buses.remove(bus);
+        assertEquals(List.of("mood:3"), bus.sent.poll().keys(), "flushed on shutdown");
+    }
+
+    @Test
+    @DisplayName("A resync drops everything each listener subscribed to")
+    void resyncDeliversBarePrefixes() {
+        RecordingBus bus = track(new RecordingBus(64, 10));
+        List<String> seen = new CopyOnWriteArrayList<>();
+        bus.subscribe(InvalidationBus.USER_PREFIX, seen::add);
+        bus.subscribe(InvalidationBus.MOOD_PREFIX, seen::add);
+
+        bus.resync();
+
+        assertEquals(List.of(InvalidationBus.USER_PREFIX, InvalidationBus.MOOD_PREFIX), seen);
+    }
+
+    private <T extends BatchingInvalidationBus> T track(T bus) {
+        buses.add(bus);
+        return bus;
+    }
+
+    private static void awaitStat(InvalidationBus bus, String name, Object expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!expected.equals(bus.stats().get(name))) {
+            if (System.nanoTime() > deadline) fail(name + " is " + bus.stats().get(name) + ", expected " + expected);
+            Thread.sleep(5);
+        }
+    }
+
+    /** Keeps sent batches instead of delivering them anywhere. */
+    private static final class RecordingBus extends BatchingInvalidationBus {
+        final LinkedBlockingQueue<Batch> sent = new LinkedBlockingQueue<>();
+
+        RecordingBus(int batchSize, long flushMillis) {
+            super("test", batchSize, flushMillis);
+        }
+
+        @Override
+        protected void send(Batch batch) {
+            sent.add(batch);
+        }
+    }
+}
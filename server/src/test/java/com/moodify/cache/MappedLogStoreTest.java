@@ -0,0 +1,175 @@
+package com.moodify.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedLogStoreTest {
+
+    private static final int CAPACITY = 4096;
+    private static final long NEVER = Long.MAX_VALUE;
+
+    @TempDir
+    Path dir;
+
+    private MappedLogStore store;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (store != null) store.close();
+    }
+
+    @Test
+    @DisplayName("Appended values are readable, the latest write wins and expired entries miss")
+    void appendAndGet() throws IOException {
+        store = open();
+        store.put("a", bytes("one"), NEVER);
+        store.put("b", bytes("two"), NEVER);
+        store.put("a", bytes("three"), NEVER);
+        store.put("old", bytes("gone"), System.currentTimeMillis() - 1);
+
+        assertEquals("three", text(store.get("a")));
+        assertEquals("two", text(store.get("b")));
+        assertNull(store.get("old"));
+        assertNull(store.get("missing"));
+        assertEquals(20L + 1 + 3, store.stats().get("deadBytes"));
+    }
+
+    @Test
+    @DisplayName("Entries and removals survive a reopen")
+    void replaysOnReopen() throws IOException {
+        store = open();
+        store.put("a", bytes("one"), NEVER);
+        store.put("b", bytes("two"), NEVER);
+        store.remove("b");
+        store.close();
+
+        store = open();
+        assertEquals("one", text(store.get("a")));
+        assertNull(store.get("b"));
+    }
+
+    @Test
+    @DisplayName("Replay stops at a record whose CRC doesn't match, and appending resumes there")
+    void replayStopsAtTornRecord() throws IOException {
+        store = open();
+        store.put("a", bytes("one"), NEVER);
+        store.put("b", bytes("two"), NEVER);
+        store.close();
+        store = null;
+
+        // Second record starts at 24 (20-byte header + "a" + "one"); flip a byte of its value
+        int secondValue = 24 + 20 + 1;
+        try (FileChannel ch = FileChannel.open(logFile(), StandardOpenOption.WRITE)) {
+            ch.write(ByteBuffer.wrap(bytes("X")), secondValue);
+        }
+
+        store = open();
+        assertEquals("one", text(store.get("a")));
+        assertNull(store.get("b"));
+        assertEquals(24, store.stats().get("bytesUsed"));
+
+        store.put("c", bytes("three"), NEVER);
+        store.close();
+        store = open();
+        assertEquals("one", text(store.get("a")));
+        assertEquals("three", text(store.get("c")));
+        assertNull(store.get("b"));
+    }
+
+    @Test
+    @DisplayName("A full file of overwritten keys is compacted without losing live entries")
+    void compactionDropsDeadRecords() throws IOException {
+        store = open();
+        for (int i = 0; i < 200; i++) {
+            store.put("k" + (i % 5), bytes("value-" + i + "-" + "x".repeat(80)), NEVER);
+        }
+
+        var stats = store.stats();
+        assertTrue((long) stats.get("compactions") >= 1);
+        assertEquals(0L, stats.get("evicted"));
+        assertEquals(0L, stats.get("rejected"));
+        for (int k = 0; k < 5; k++) {
+            assertTrue(text(store.get("k" + k)).startsWith("value-" + (195 + k) + "-"));
+        }
+
+        store.close();
+        store = open();
+        assertTrue(text(store.get("k4")).startsWith("value-199-"));
+    }
+
+    @Test
+    @DisplayName("A file full of live entries evicts the oldest instead of rewriting on every put")
+    void liveDataEvictsOldestWithoutThrashing() throws IOException {
+        store = open();
+        int puts = 200;
+        int recordBytes = 0;
+        for (int i = 0; i < puts; i++) {
+            String key = String.format("k%03d", i);
+            byte[] value = bytes("x".repeat(100));
+            recordBytes = 20 + key.length() + value.length;
+            store.put(key, value, NEVER);
+        }
+
+        var stats = store.stats();
+        long compactions = (long) stats.get("compactions");
+        // Each rewrite frees at least a quarter of the file
+        long bound = (long) puts * recordBytes / (CAPACITY / 4) + 1;
+        assertTrue(compactions >= 1 && compactions <= bound, compactions + " compactions, bound " + bound);
+        assertTrue((long) stats.get("evicted") > 0);
+        assertEquals(0L, stats.get("rejected"));
+        assertNotNull(store.get("k199"));
+        assertNull(store.get("k000"));
+    }
+
+    @Test
+    @DisplayName("clear drops everything, also after a reopen")
+    void clearDropsEverything() throws IOException {
+        store = open();
+        store.put("a", bytes("one"), NEVER);
+        store.put("b", bytes("two"), NEVER);
+        store.clear();
+
+        assertNull(store.get("a"));
+        assertEquals(0, store.stats().get("entries"));
+        store.put("c", bytes("three"), NEVER);
+        store.close();
+
+        store = open();
+        assertNull(store.get("b"));
+        assertEquals("three", text(store.get("c")));
+    }
+
+    @Test
+    @DisplayName("A second store on the same file is refused")
+    void secondOpenIsRefused() throws IOException {
+        store = open();
+        assertThrows(MappedLogStore.InUseException.class, this::open);
+    }
+
+    private MappedLogStore open() throws IOException {
+        return MappedLogStore.open(logFile(), CAPACITY);
+    }
+
+    private Path logFile() {
+        return dir.resolve("test.log");
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(byte[] b) {
+        return b == null ? null : new String(b, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,58 @@
+package com.moodify.controller;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/** Wiping the recommendation cache is an operator action; everything else stays open. */
+@SpringBootTest(properties = "admin.password=s3cret")
+@AutoConfigureMockMvc
+@ActiveProfiles("dev")
+class RecommendationCacheAdminTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @DisplayName("Anonymous or wrong credentials can't clear the cache")
+    void anonymousIsRefused() throws Exception {
+        mockMvc.perform(delete("/api/recommendations/cache"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(delete("/api/recommendations/cache").header(HttpHeaders.AUTHORIZATION, basic("admin", "wrong")))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @DisplayName("The operator account can clear one key or everything")
+    void adminCanClear() throws Exception {
+        mockMvc.perform(delete("/api/recommendations/cache").param("key", "daily|score=3")
+                        .header(HttpHeaders.AUTHORIZATION, basic("admin", "s3cret")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.invalidated").value("daily|score=3"));
+        mockMvc.perform(delete("/api/recommendations/cache").header(HttpHeaders.AUTHORIZATION, basic("admin", "s3cret")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.invalidated").value("all"));
+    }
+
+    @Test
+    @DisplayName("Other endpoints stay open")
+    void otherEndpointsStayOpen() throws Exception {
+        mockMvc.perform(get("/api/recommendations/stats"))
+                .andExpect(status().isOk());
+    }
+
+    private static String basic(String user, String password) {
+        return "Basic " + Base64.getEncoder().encodeToString((user + ":" + password).getBytes(StandardCharsets.UTF_8));
+    }
+}
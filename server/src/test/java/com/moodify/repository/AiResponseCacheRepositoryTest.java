@@ -0,0 +1,59 @@
+package com.moodify.repository;
+
+import com.moodify.entity.AiResponseCacheEntry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cache writes are a plain insert; a key that is already there is only overwritten once its
+ * entry has expired.
+ */
+@SpringBootTest
+@ActiveProfiles("dev")
+@Transactional
+class AiResponseCacheRepositoryTest {
+
+    @Autowired
+    private AiResponseCacheRepository repo;
+
+    @Test
+    @DisplayName("A live entry is kept, a second insert for the same key is a no-op")
+    void insertKeepsLiveEntry() {
+        String key = key();
+        OffsetDateTime now = OffsetDateTime.now();
+
+        assertEquals(1, repo.insertIfAbsent(key, "commentOnReason", "m", "v1", "pertama", now, now.plusHours(1)));
+        assertEquals(0, repo.insertIfAbsent(key, "commentOnReason", "m", "v1", "kedua", now, now.plusHours(1)));
+        assertEquals(0, repo.replaceExpired(key, "kedua", now, now.plusHours(1)));
+
+        assertEquals("pertama", repo.findById(key).map(AiResponseCacheEntry::getContent).orElseThrow());
+    }
+
+    @Test
+    @DisplayName("An expired entry that was not purged yet is replaced")
+    void expiredEntryIsReplaced() {
+        String key = key();
+        OffsetDateTime now = OffsetDateTime.now();
+        repo.insertIfAbsent(key, "commentOnReason", "m", "v1", "lama", now.minusHours(2), now.minusHours(1));
+
+        assertEquals(0, repo.insertIfAbsent(key, "commentOnReason", "m", "v1", "baru", now, now.plusHours(1)));
+        assertEquals(1, repo.replaceExpired(key, "baru", now, now.plusHours(1)));
+
+        AiResponseCacheEntry e = repo.findById(key).orElseThrow();
+        assertEquals("baru", e.getContent());
+        assertTrue(e.getExpiresAt().isAfter(now));
+    }
+
+    private static String key() {
+        return UUID.randomUUID().toString().replace("-", "");
+    }
+}
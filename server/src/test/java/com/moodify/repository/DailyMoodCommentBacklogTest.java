@@ -0,0 +1,106 @@
+package com.moodify.repository;
+
+import com.moodify.entity.DailyMoodEntry;
+import com.moodify.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The AI comment backlog is a query over daily_mood_entries plus a claim with a lease, so it
+ * survives restarts and is shared between nodes without double work.
+ */
+@SpringBootTest
+@ActiveProfiles("dev")
+@Transactional
+class DailyMoodCommentBacklogTest {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    @Autowired
+    private DailyMoodEntryRepository repo;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+    private OffsetDateTime now;
+
+    @BeforeEach
+    void setUp() {
+        User u = new User();
+        u.setUsername("backlog-" + System.nanoTime());
+        u.setFirstLogin(OffsetDateTime.now().minusDays(30));
+        user = userRepository.save(u);
+        now = OffsetDateTime.now();
+    }
+
+    @Test
+    @DisplayName("Only old enough entries with a mood and reason but no comment are in the backlog")
+    void selectsEntriesWaitingForAComment() {
+        UUID waiting = entry(1, 3, "capek kerja", null, now.minusMinutes(5));
+        UUID commented = entry(2, 3, "capek kerja", "Istirahat dulu ya.", now.minusMinutes(5));
+        UUID noReason = entry(3, 3, " ", null, now.minusMinutes(5));
+        UUID noMood = entry(4, null, "capek kerja", null, now.minusMinutes(5));
+        UUID fresh = entry(5, 3, "capek kerja", null, now);
+
+        List<UUID> backlog = backlog();
+
+        assertTrue(backlog.contains(waiting));
+        assertFalse(backlog.contains(commented));
+        assertFalse(backlog.contains(noReason));
+        assertFalse(backlog.contains(noMood));
+        assertFalse(backlog.contains(fresh), "still within the grace period");
+    }
+
+    @Test
+    @DisplayName("A claim is exclusive until its lease expires, and counts as an attempt")
+    void claimIsExclusiveUntilLeaseExpires() {
+        UUID id = entry(1, 4, "dapat kerja baru", null, now.minusMinutes(5));
+
+        assertEquals(1, repo.claimForComment(id, now, now.minusMinutes(10)));
+        assertEquals(0, repo.claimForComment(id, now, now.minusMinutes(10)), "second node loses");
+        assertFalse(backlog().contains(id));
+
+        // Ten minutes later the first claim has expired
+        OffsetDateTime later = now.plusMinutes(11);
+        assertTrue(repo.findCommentBacklog(MAX_ATTEMPTS, later.minusMinutes(10), later, PageRequest.of(0, 10_000)).contains(id));
+        assertEquals(1, repo.claimForComment(id, later, later.minusMinutes(10)));
+    }
+
+    @Test
+    @DisplayName("Entries that used up their attempts leave the backlog")
+    void exhaustedEntriesLeaveTheBacklog() {
+        UUID id = entry(1, 2, "sakit", null, now.minusMinutes(5));
+        for (int i = 0; i < MAX_ATTEMPTS; i++) {
+            OffsetDateTime at = now.plusHours(i);
+            assertEquals(1, repo.claimForComment(id, at, at.minusMinutes(10)));
+        }
+
+        OffsetDateTime later = now.plusHours(MAX_ATTEMPTS);
+        assertFalse(repo.findCommentBacklog(MAX_ATTEMPTS, later.minusMinutes(10), later, PageRequest.of(0, 10_000)).contains(id));
+    }
+
+    private List<UUID> backlog() {
+        return repo.findCommentBacklog(MAX_ATTEMPTS, now.minusMinutes(10), now.minusSeconds(30), PageRequest.of(0, 10_000));
+    }
+
+    private UUID entry(int daysAgo, Integer mood, String reason, String aiComment, OffsetDateTime createdAt) {
+        DailyMoodEntry e = new DailyMoodEntry(user, LocalDate.now().minusDays(daysAgo), mood, createdAt);
+        e.setReason(reason);
+        e.setAiComment(aiComment);
+        return repo.saveAndFlush(e).getId();
+    }
+}
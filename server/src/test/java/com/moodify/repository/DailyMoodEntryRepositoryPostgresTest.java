@@ -0,0 +1,145 @@
+package com.moodify.repository;
+
+import com.moodify.entity.DailyMoodEntry;
+import com.moodify.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The single-statement fill and upsert only run on PostgreSQL; every other test uses H2 and takes
+ * the read-then-persist branch. This runs them against a real server, schema from the Flyway
+ * migrations.
+ */
+@SpringBootTest(properties = {
+        "recommendation.l2.enabled=false",
+        "recommendation.precompute.enabled=false"
+})
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional
+class DailyMoodEntryRepositoryPostgresTest {
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer postgres = new PostgreSQLContainer("postgres:16-alpine");
+
+    private static final LocalDate MONDAY = LocalDate.of(2025, 3, 3);
+
+    @Autowired
+    private DailyMoodEntryRepository repo;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        User u = new User();
+        u.setUsername("pg-" + System.nanoTime());
+        u.setFirstLogin(MONDAY.minusDays(7).atStartOfDay().atOffset(ZoneOffset.UTC));
+        user = userRepository.save(u);
+    }
+
+    @Test
+    @DisplayName("The fill inserts every missing day once, with week numbers and day names")
+    void fillInsertsMissingDaysOnly() {
+        LocalDate sunday = MONDAY.plusDays(6);
+        repo.submitMood(user, MONDAY.plusDays(2), 2, 4, null, OffsetDateTime.now());
+
+        assertEquals(6, repo.fillPlaceholders(user, MONDAY, sunday, MONDAY.minusDays(7)));
+        assertEquals(0, repo.fillPlaceholders(user, MONDAY, sunday, MONDAY.minusDays(7)));
+
+        em.clear();
+        List<DailyMoodEntry> week = repo.findByUserAndDateBetween(user, MONDAY, sunday).stream()
+                .sorted(Comparator.comparing(DailyMoodEntry::getDate))
+                .toList();
+        assertEquals(7, week.size());
+        for (DailyMoodEntry e : week) {
+            assertEquals(2, e.getWeekNumber());
+            assertEquals(e.getDate().getDayOfWeek().toString(), e.getDayName());
+        }
+        assertEquals(4, week.get(2).getMood());
+        assertNull(week.get(0).getMood());
+    }
+
+    @Test
+    @DisplayName("Days before the anchor, or without one, count as week 1")
+    void fillBeforeAnchorIsWeekOne() {
+        repo.fillPlaceholders(user, MONDAY, MONDAY.plusDays(1), null);
+        repo.fillPlaceholders(user, MONDAY.plusDays(2), MONDAY.plusDays(2), MONDAY.plusDays(7));
+
+        em.clear();
+        for (DailyMoodEntry e : repo.findByUserAndDateBetween(user, MONDAY, MONDAY.plusDays(2))) {
+            assertEquals(1, e.getWeekNumber());
+        }
+    }
+
+    @Test
+    @DisplayName("A submit on a new day inserts the row and maps the returned columns")
+    void submitInsertsNewDay() {
+        OffsetDateTime at = OffsetDateTime.now().withNano(0);
+
+        Optional<DailyMoodEntry> saved = repo.submitMood(user, MONDAY, 2, 5, "lulus ujian", at);
+
+        assertTrue(saved.isPresent());
+        DailyMoodEntry e = saved.get();
+        assertNotNull(e.getId());
+        assertEquals(user.getId(), e.getUser().getId());
+        assertEquals(MONDAY, e.getDate());
+        assertEquals(5, e.getMood());
+        assertEquals("lulus ujian", e.getReason());
+        assertEquals(2, e.getWeekNumber());
+        assertEquals("MONDAY", e.getDayName());
+        assertEquals(at.toInstant(), e.getCreatedAt().toInstant());
+    }
+
+    @Test
+    @DisplayName("A submit fills an empty placeholder in place and keeps its week number")
+    void submitFillsPlaceholder() {
+        repo.fillPlaceholders(user, MONDAY, MONDAY, MONDAY.minusDays(14));
+        em.clear();
+        DailyMoodEntry placeholder = repo.findByUserAndDate(user, MONDAY).orElseThrow();
+
+        Optional<DailyMoodEntry> saved = repo.submitMood(user, MONDAY, 2, 3, null, OffsetDateTime.now());
+
+        assertTrue(saved.isPresent());
+        assertEquals(placeholder.getId(), saved.get().getId());
+        assertEquals(3, saved.get().getMood());
+        assertEquals(3, saved.get().getWeekNumber(), "placeholder's week number wins");
+    }
+
+    @Test
+    @DisplayName("A second submit for the same day returns nothing and leaves the first mood")
+    void secondSubmitIsRejected() {
+        assertTrue(repo.submitMood(user, MONDAY, 2, 2, "pertama", OffsetDateTime.now()).isPresent());
+
+        assertTrue(repo.submitMood(user, MONDAY, 2, 5, "kedua", OffsetDateTime.now()).isEmpty());
+
+        em.clear();
+        DailyMoodEntry stored = repo.findByUserAndDate(user, MONDAY).orElseThrow();
+        assertEquals(2, stored.getMood());
+        assertEquals("pertama", stored.getReason());
+    }
+}
@@ -0,0 +1,105 @@
+package com.moodify.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.moodify.dto.RecommendationResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Allocation benchmark for the recommendation cache-hit path, measured with the per-thread
+ * allocation counter. The old path copied the response and its activity list on every hit.
+ */
+class CachedRecommendationAllocationTest {
+
+    private static final int WARMUP = 50_000;
+    private static final int ITERATIONS = 200_000;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final RecommendationResponse response = new RecommendationResponse(
+            4, "happy", List.of("Jalan santai", "Minum air", "Dengarkan musik", "Peregangan"),
+            "Salurkan energi ke aktivitas bermakna.", "v1-ai", false);
+
+    @Test
+    @DisplayName("Serving a hot cache hit allocates nothing per request")
+    void hitPathIsAllocationFree() {
+        com.sun.management.ThreadMXBean threads = threadMXBean();
+        CachedRecommendation entry = new CachedRecommendation(response);
+
+        long sink = 0;
+        for (int i = 0; i < WARMUP; i++) sink += serveHit(entry);
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < ITERATIONS; i++) sink += serveHit(entry);
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        double perHit = (double) allocated / ITERATIONS;
+        assertTrue(sink > 0);
+        assertTrue(perHit < 1.0, "expected no per-hit allocation, got " + perHit + " bytes/op");
+    }
+
+    @Test
+    @DisplayName("Hit view carries cached=true and hot entries keep their JSON")
+    void hitViewAndJson() throws Exception {
+        CachedRecommendation entry = new CachedRecommendation(response);
+
+        assertFalse(entry.fresh().response().isCached());
+        assertNull(entry.fresh().json());
+        CachedRecommendation.View first = entry.hit(mapper, 2);
+        assertTrue(first.response().isCached());
+        assertNull(first.json());
+
+        byte[] json = entry.hit(mapper, 2).json();
+        assertNotNull(json);
+        RecommendationResponse parsed = mapper.readValue(json, RecommendationResponse.class);
+        assertTrue(parsed.isCached());
+        assertEquals(response.getActivities(), parsed.getActivities());
+    }
+
+    @Test
+    @DisplayName("Reference: the previous copy-per-hit path allocates on every hit")
+    void copyPathAllocates() {
+        com.sun.management.ThreadMXBean threads = threadMXBean();
+
+        long sink = 0;
+        for (int i = 0; i < WARMUP; i++) sink += copyHit(response);
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < ITERATIONS; i++) sink += copyHit(response);
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        double perHit = (double) allocated / ITERATIONS;
+        assertTrue(sink > 0);
+        // At least the copied response object itself
+        assertTrue(perHit >= 16, "expected the copy path to allocate, got " + perHit + " bytes/op");
+    }
+
+    private long serveHit(CachedRecommendation entry) {
+        CachedRecommendation.View view = entry.hit(mapper, 3);
+        byte[] json = view.json();
+        return json == null ? view.response().getScore() : json.length;
+    }
+
+    // What every hit used to do: copy the response and its list so the flag could be flipped.
+    private static long copyHit(RecommendationResponse r) {
+        RecommendationResponse copy = new RecommendationResponse(r.getScore(), r.getCategory(),
+                new ArrayList<>(r.getActivities()), r.getTips(), r.getPromptVersion(), true);
+        return copy.getActivities().size() + System.identityHashCode(copy) % 2;
+    }
+
+    private static com.sun.management.ThreadMXBean threadMXBean() {
+        var bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean, "allocation counter not available");
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled(),
+                "allocation counter not enabled");
+        return threads;
+    }
+}
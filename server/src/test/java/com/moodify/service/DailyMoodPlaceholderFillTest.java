@@ -0,0 +1,76 @@
+package com.moodify.service;
+
+import com.moodify.entity.User;
+import com.moodify.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.OffsetDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Filling a week's placeholders must not cost one INSERT per day: the missing days go out as a
+ * single JDBC batch (a single INSERT ... SELECT on PostgreSQL).
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "mood.placeholders.mode=materialized"
+})
+@ActiveProfiles("dev")
+class DailyMoodPlaceholderFillTest {
+
+    @Autowired
+    private DailyMoodService dailyMoodService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User user;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        User u = new User();
+        u.setUsername("placeholder-" + System.nanoTime());
+        u.setFirstLogin(OffsetDateTime.now().minusDays(10));
+        user = userRepository.save(u);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    // The user's first week lies entirely in the past, so all seven days get a placeholder
+    @Test
+    void firstVisitFillsTheWeekInOneBatch() {
+        var week = dailyMoodService.getWeek(user, 1);
+
+        assertEquals(7, week.size());
+        assertEquals(7, statistics.getEntityInsertCount());
+        // existing-days read + one batched insert + week read; was 1 + 7 + 1
+        assertTrue(statistics.getPrepareStatementCount() <= 3,
+                "statements: " + statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void repeatVisitDoesNotWrite() {
+        dailyMoodService.getWeek(user, 1);
+        statistics.clear();
+
+        var week = dailyMoodService.getWeek(user, 1);
+
+        assertEquals(7, week.size());
+        assertEquals(0, statistics.getEntityInsertCount());
+        assertTrue(statistics.getPrepareStatementCount() <= 2,
+                "statements: " + statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,106 @@
+package com.moodify.service;
+
+import com.moodify.entity.User;
+import com.moodify.repository.DailyMoodEntryRepository;
+import com.moodify.repository.UserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Many threads submitting today's mood for the same few users at once, the way double taps and
+ * client retries arrive. Every user must end up with exactly one stored mood, every other
+ * attempt must get the "already submitted" answer, and nothing may surface as a
+ * constraint violation.
+ */
+@SpringBootTest
+@ActiveProfiles("dev")
+class MoodSubmitContentionStressTest {
+
+    private static final int USERS = 25;
+    private static final int ATTEMPTS_PER_USER = 12;
+    private static final int THREADS = 32;
+
+    @Autowired
+    private DailyMoodService dailyMoodService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DailyMoodEntryRepository dailyMoodEntryRepository;
+
+    @Test
+    @DisplayName("Concurrent submits for one user store exactly one mood")
+    void concurrentSubmitsAreSerializedPerUser() throws Exception {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            User u = new User();
+            u.setUsername("contention-" + i + "-" + System.nanoTime());
+            u.setFirstLogin(OffsetDateTime.now().minusDays(5));
+            users.add(userRepository.save(u));
+        }
+
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger alreadySubmitted = new AtomicInteger();
+        Map<String, Integer> unexpected = new ConcurrentHashMap<>();
+        Map<UUID, Integer> storedByCaller = new ConcurrentHashMap<>();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int a = 0; a < ATTEMPTS_PER_USER; a++) {
+            for (int i = 0; i < USERS; i++) {
+                User user = users.get(i);
+                int mood = 1 + (a + i) % 5;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        var saved = dailyMoodService.submitTodayMood(user, mood, null);
+                        accepted.incrementAndGet();
+                        storedByCaller.put(user.getId(), saved.getMood());
+                    } catch (IllegalStateException e) {
+                        alreadySubmitted.incrementAndGet();
+                    } catch (Exception e) {
+                        unexpected.merge(e.getClass().getSimpleName(), 1, Integer::sum);
+                    }
+                    return null;
+                }));
+            }
+        }
+
+        start.countDown();
+        for (Future<?> f : futures) f.get(60, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        int total = USERS * ATTEMPTS_PER_USER;
+
+        assertTrue(unexpected.isEmpty(), "unexpected failures: " + unexpected);
+        assertEquals(USERS, accepted.get());
+        assertEquals(total - USERS, alreadySubmitted.get());
+        LocalDate today = LocalDate.now();
+        for (User user : users) {
+            var stored = dailyMoodEntryRepository.findByUserAndDate(user, today).orElseThrow();
+            // The stored mood is the one the accepted caller was told about
+            assertEquals(storedByCaller.get(user.getId()), stored.getMood());
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.moodify.service;
+
+import com.moodify.entity.User;
+import com.moodify.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Statements per mood submission, counted with Hibernate statistics. The previous flow was a
+ * lookup, a save, a window SELECT and up to seven placeholder INSERTs (~10 statements). On
+ * PostgreSQL a submission is now one upsert; the H2 fallback used here is a lookup plus one write.
+ * The mood history is rebuilt on the next read, so it adds nothing to a submit.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@ActiveProfiles("dev")
+class MoodSubmitStatementBenchmarkTest {
+
+    private static final int USERS = 40;
+
+    @Autowired
+    private DailyMoodService dailyMoodService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MoodHistoryService moodHistoryService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    @DisplayName("Today's and past submissions cost at most two statements each")
+    void statementsPerSubmit() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) users.add(newUser());
+        LocalDate past = LocalDate.now().minusDays(3);
+        statistics.clear();
+
+        for (int i = 0; i < USERS; i++) {
+            dailyMoodService.submitTodayMood(users.get(i), 1 + i % 5, "hari ini biasa saja");
+            dailyMoodService.submitPastMood(users.get(i), past, 1 + (i + 2) % 5, null);
+        }
+
+        double perSubmit = (double) statistics.getPrepareStatementCount() / (2 * USERS);
+        assertEquals(2L * USERS, statistics.getEntityInsertCount());
+        assertTrue(perSubmit <= 2.0, "expected at most 2 statements per submit, got " + perSubmit);
+
+        User last = users.get(USERS - 1);
+        PackedMoodHistory history = moodHistoryService.historyFor(last);
+        assertEquals(1 + (USERS - 1) % 5, history.get(LocalDate.now()));
+        assertEquals(1 + (USERS + 1) % 5, history.get(past));
+    }
+
+    @Test
+    @DisplayName("A cached history picks up a submission and reading it writes nothing")
+    void historyReadAfterSubmit() {
+        User user = newUser();
+        assertEquals(0, moodHistoryService.historyFor(user).get(LocalDate.now()));
+
+        dailyMoodService.submitTodayMood(user, 3, null);
+        statistics.clear();
+
+        assertEquals(3, moodHistoryService.historyFor(user).get(LocalDate.now()));
+        assertEquals(0, statistics.getEntityInsertCount());
+        assertEquals(0, statistics.getEntityUpdateCount());
+        // one (date, mood) projection, then served from memory
+        assertEquals(1, statistics.getPrepareStatementCount());
+        moodHistoryService.historyFor(user);
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("A second submission for the same day is rejected without writing")
+    void secondSubmitIsRejected() {
+        User user = newUser();
+        var first = dailyMoodService.submitTodayMood(user, 4, null);
+        assertEquals(4, first.getMood());
+        statistics.clear();
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> dailyMoodService.submitTodayMood(user, 2, "berubah pikiran"));
+
+        assertEquals("Mood already submitted for today", ex.getMessage());
+        assertEquals(0, statistics.getEntityInsertCount());
+        assertEquals(0, statistics.getEntityUpdateCount());
+        assertEquals(4, dailyMoodService.findEntry(user, LocalDate.now()).orElseThrow().getMood());
+    }
+
+    private User newUser() {
+        User u = new User();
+        u.setUsername("submit-" + System.nanoTime());
+        u.setFirstLogin(OffsetDateTime.now().minusDays(20));
+        return userRepository.save(u);
+    }
+}
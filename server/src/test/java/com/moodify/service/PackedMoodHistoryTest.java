@@ -0,0 +1,140 @@
+package com.moodify.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Days are 3 bits wide, so some straddle a byte boundary: day 21 is bits 63-65, across bytes 7
+ * and 8 (the first 64-bit boundary). Reads and writes there must not disturb the neighbours.
+ */
+class PackedMoodHistoryTest {
+
+    private static final LocalDate START = LocalDate.of(2025, 1, 1);
+
+    @Test
+    @DisplayName("Days 20-22 around the 64-bit boundary keep their own values")
+    void valuesAroundTheBoundary() {
+        // Day 0 first: an empty history starts at its first written day
+        PackedMoodHistory h = PackedMoodHistory.empty(START)
+                .with(day(0), 1)
+                .with(day(20), 5)
+                .with(day(21), 3)
+                .with(day(22), 4);
+
+        assertEquals(START, h.start());
+        assertEquals(0, h.get(day(19)));
+        assertEquals(5, h.get(day(20)));
+        assertEquals(3, h.get(day(21)));
+        assertEquals(4, h.get(day(22)));
+        assertEquals(0, h.get(day(23)));
+        assertEquals(23, h.days());
+        assertEquals(9, h.toBytes().length);
+    }
+
+    @Test
+    @DisplayName("Every mood at every position is read back without touching other days")
+    void everyPositionAndMood() {
+        int days = 48;
+        PackedMoodHistory base = PackedMoodHistory.empty(START);
+        for (int i = 0; i < days; i++) base = base.with(day(i), 1 + i % 5);
+
+        for (int i = 0; i < days; i++) {
+            for (int mood = 1; mood <= 5; mood++) {
+                PackedMoodHistory h = base.with(day(i), mood);
+                for (int j = 0; j < days; j++) {
+                    int expected = j == i ? mood : 1 + j % 5;
+                    assertEquals(expected, h.get(day(j)), "day " + j + " after writing " + mood + " on day " + i);
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Overwriting a day replaces its value and leaves the length alone")
+    void overwrite() {
+        PackedMoodHistory h = PackedMoodHistory.empty(START)
+                .with(day(0), 1)
+                .with(day(20), 2)
+                .with(day(21), 5)
+                .with(day(22), 2);
+
+        PackedMoodHistory changed = h.with(day(21), 1);
+
+        assertEquals(1, changed.get(day(21)));
+        assertEquals(2, changed.get(day(20)));
+        assertEquals(2, changed.get(day(22)));
+        assertEquals(h.days(), changed.days());
+        assertEquals(5, h.get(day(21)), "the original is unchanged");
+    }
+
+    @Test
+    @DisplayName("Days outside the history read as empty and invalid moods are refused")
+    void outOfRange() {
+        PackedMoodHistory h = PackedMoodHistory.empty(START).with(day(3), 4).with(day(5), 2);
+
+        assertEquals(0, PackedMoodHistory.empty(START).get(START));
+        assertEquals(0, h.get(day(2)));
+        assertEquals(0, h.get(day(6)));
+        assertEquals(0, h.get(START.minusYears(1)));
+        assertEquals(0, h.get(day(10_000)));
+        assertThrows(IllegalArgumentException.class, () -> h.with(day(4), 0));
+        assertThrows(IllegalArgumentException.class, () -> h.with(day(4), 6));
+        assertThrows(IllegalArgumentException.class, () -> new PackedMoodHistory(START, 22, new byte[8]));
+    }
+
+    @Test
+    @DisplayName("Writing before the start shifts existing days without changing them")
+    void growsBackwards() {
+        PackedMoodHistory h = PackedMoodHistory.empty(day(10))
+                .with(day(10), 3)
+                .with(day(31), 5)
+                .with(day(32), 1);
+
+        PackedMoodHistory grown = h.with(day(0), 2);
+
+        assertEquals(day(0), grown.start());
+        assertEquals(33, grown.days());
+        assertEquals(2, grown.get(day(0)));
+        assertEquals(3, grown.get(day(10)));
+        assertEquals(5, grown.get(day(31)));
+        assertEquals(1, grown.get(day(32)));
+        assertEquals(0, grown.get(day(21)));
+    }
+
+    @Test
+    @DisplayName("Streaks, counts and averages stop at gaps")
+    void streaksAcrossGaps() {
+        // Filled: 0-2, 4-8, 20-23 (across the boundary); gaps at 3 and 9-19
+        PackedMoodHistory h = PackedMoodHistory.empty(START);
+        for (int i : new int[]{0, 1, 2, 4, 5, 6, 7, 8, 20, 21, 22, 23}) h = h.with(day(i), i % 2 == 0 ? 4 : 2);
+
+        assertEquals(5, h.longestStreak());
+        assertEquals(4, h.currentStreak(day(23)));
+        assertEquals(4, h.currentStreak(day(24)), "today still open: counts up to yesterday");
+        assertEquals(0, h.currentStreak(day(25)));
+        assertEquals(3, h.currentStreak(day(22)));
+        assertEquals(5, h.currentStreak(day(8)));
+        assertEquals(6, h.filledDays(day(2), day(9)));
+        assertEquals(3.0, h.average(day(20), day(23)));
+        assertNull(h.average(day(10), day(19)));
+        assertArrayEquals(new int[]{2, 4, 0, 4}, h.calendar(day(1), day(4)));
+    }
+
+    @Test
+    @DisplayName("The stored bytes rebuild the same history")
+    void roundTripsThroughBytes() {
+        PackedMoodHistory h = PackedMoodHistory.empty(START).with(day(0), 1).with(day(21), 5).with(day(40), 3);
+
+        PackedMoodHistory copy = new PackedMoodHistory(h.start(), h.days(), h.toBytes());
+
+        for (int i = 0; i <= 41; i++) assertEquals(h.get(day(i)), copy.get(day(i)));
+    }
+
+    private static LocalDate day(int i) {
+        return START.plusDays(i);
+    }
+}
@@ -0,0 +1,88 @@
+package com.moodify.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.moodify.entity.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Segment keys end up in the precomputed recommendation table and in cache keys, so they must
+ * ignore everything that doesn't change the prompt and must not drift between releases.
+ */
+class ProfileSegmentTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("Users differing only in free-text spelling map to the same segment")
+    void freeTextVariationsShareASegment() {
+        User a = user("alice", LocalDate.now().minusYears(26), "Perempuan", "[\"Membaca\", \"olahraga\"]");
+        User b = user("bob", LocalDate.now().minusYears(33).minusDays(40), " female ",
+                "[\"  olahraga \", \"membaca\", \"MEMBACA\", \"\", null]");
+        b.setFirstLogin(OffsetDateTime.now().minusDays(300));
+
+        ProfileSegment sa = ProfileSegment.of(a, mapper);
+        ProfileSegment sb = ProfileSegment.of(b, mapper);
+
+        assertEquals(sa, sb);
+        assertEquals(sa.key(), sb.key());
+        assertEquals(sa.hashCode(), sb.hashCode());
+        assertEquals(sa.promptText(), sb.promptText());
+    }
+
+    @Test
+    @DisplayName("Whitespace inside a hobby is collapsed")
+    void hobbyWhitespaceIsCollapsed() {
+        ProfileSegment a = ProfileSegment.of(user("a", null, null, "[\"main  gitar\"]"), mapper);
+        ProfileSegment b = ProfileSegment.of(user("b", null, null, "[\"Main gitar\"]"), mapper);
+        assertEquals(a.key(), b.key());
+    }
+
+    @Test
+    @DisplayName("Different bands, genders or hobby sets give different keys")
+    void realDifferencesSplitSegments() {
+        ProfileSegment base = ProfileSegment.of(user("a", LocalDate.now().minusYears(26), "female", "[\"membaca\"]"), mapper);
+
+        assertNotEquals(base.key(), ProfileSegment.of(user("a", LocalDate.now().minusYears(40), "female", "[\"membaca\"]"), mapper).key());
+        assertNotEquals(base.key(), ProfileSegment.of(user("a", LocalDate.now().minusYears(26), "pria", "[\"membaca\"]"), mapper).key());
+        assertNotEquals(base.key(), ProfileSegment.of(user("a", LocalDate.now().minusYears(26), "female", "[\"menulis\"]"), mapper).key());
+    }
+
+    @Test
+    @DisplayName("The key format is stable")
+    void keyIsStable() {
+        ProfileSegment segment = ProfileSegment.of(
+                user("a", LocalDate.now().minusYears(30), "wanita", "[\"olahraga\", \"membaca\"]"), mapper);
+
+        assertEquals("age=25-34;gender=female;hobbies=37c65661fd2973da", segment.key());
+        assertEquals("umur:25-34 | gender:female | hobi:membaca,olahraga", segment.promptText());
+        assertEquals(segment.key(), ProfileSegment.of(
+                user("a", LocalDate.now().minusYears(30), "wanita", "[\"olahraga\", \"membaca\"]"), mapper).key());
+    }
+
+    @Test
+    @DisplayName("Missing or unreadable profile data falls back to the unknown segment")
+    void missingDataIsUnknown() {
+        assertEquals(ProfileSegment.UNKNOWN, ProfileSegment.of(null, mapper));
+        ProfileSegment empty = ProfileSegment.of(user("a", null, " ", "not json"), mapper);
+        assertEquals(ProfileSegment.UNKNOWN.key(), empty.key());
+        assertEquals("age=unknown;gender=unknown;hobbies=-", empty.key());
+        assertEquals("", empty.promptText());
+    }
+
+    private static User user(String username, LocalDate birthDate, String gender, String hobbiesJson) {
+        User u = new User();
+        u.setId(UUID.randomUUID());
+        u.setUsername(username);
+        u.setBirthDate(birthDate);
+        u.setGender(gender);
+        u.setHobbiesJson(hobbiesJson);
+        return u;
+    }
+}
@@ -0,0 +1,116 @@
+package com.moodify.service;
+
+import com.moodify.ai.OpenAIStubServer;
+import com.moodify.entity.PrecomputedRecommendation;
+import com.moodify.repository.PrecomputedRecommendationRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A node that starts while the stored precomputed rows are still fresh reuses them; only rows
+ * that are missing or older than the refresh interval go to the AI.
+ */
+@SpringBootTest
+@ActiveProfiles("dev")
+class RecommendationPrecomputeRefreshTest {
+
+    private static final OpenAIStubServer STUB = startStub();
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("openai.api.baseUrl", STUB::baseUrl);
+        registry.add("openai.api.key", () -> "stub-key");
+        registry.add("openai.cache.enabled", () -> "false");
+        registry.add("openai.health.enabled", () -> "false");
+        registry.add("recommendation.precompute.topSegments", () -> "0");
+        registry.add("recommendation.precompute.refreshIntervalMillis", () -> "3600000");
+    }
+
+    @AfterAll
+    static void stopStub() {
+        STUB.close();
+    }
+
+    @Autowired
+    private RecommendationPrecomputeService precompute;
+
+    @Autowired
+    private PrecomputedRecommendationRepository repository;
+
+    @BeforeEach
+    void waitForStartupRefresh() throws InterruptedException {
+        awaitRefresh();
+        repository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Fresh rows are reused on warm-up without any AI call")
+    void freshRowsAreReused() throws InterruptedException {
+        storeRows(OffsetDateTime.now().minusMinutes(5), 1, 2, 3, 4, 5);
+        long before = STUB.chatRequests();
+
+        precompute.warmUp();
+        awaitRefresh();
+
+        assertEquals(before, STUB.chatRequests());
+        assertEquals(0, precompute.stats().get("lastRefreshGenerated"));
+        assertEquals(5, precompute.stats().get("lastRefreshReused"));
+    }
+
+    @Test
+    @DisplayName("Only missing and stale rows are regenerated")
+    void missingAndStaleRowsAreRegenerated() throws InterruptedException {
+        storeRows(OffsetDateTime.now().minusMinutes(5), 1, 2, 3);
+        storeRows(OffsetDateTime.now().minusHours(2), 4);
+        long before = STUB.chatRequests();
+
+        precompute.warmUp();
+        awaitRefresh();
+
+        assertEquals(before + 2, STUB.chatRequests());
+        assertEquals(2, precompute.stats().get("lastRefreshGenerated"));
+        assertEquals(3, precompute.stats().get("lastRefreshReused"));
+        assertTrue(repository.findAll().stream().allMatch(r -> r.getGeneratedAt().isAfter(OffsetDateTime.now().minusHours(1))));
+    }
+
+    private void storeRows(OffsetDateTime generatedAt, int... scores) {
+        List<PrecomputedRecommendation> rows = new ArrayList<>();
+        for (int score : scores) {
+            rows.add(new PrecomputedRecommendation(score, ProfileSegment.UNKNOWN.key(), RecommendationService.toCategory(score),
+                    "[\"Jalan santai\",\"Minum air\",\"Tidur cukup\"]", "Pelan-pelan saja.",
+                    RecommendationService.PROMPT_VERSION_AI, generatedAt));
+        }
+        repository.saveAll(rows);
+    }
+
+    private void awaitRefresh() throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (Boolean.TRUE.equals(precompute.stats().get("refreshing"))) {
+            if (System.nanoTime() > deadline) fail("precompute refresh did not finish");
+            Thread.sleep(20);
+        }
+    }
+
+    private static OpenAIStubServer startStub() {
+        try {
+            return OpenAIStubServer.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}